@@ -1,25 +1,35 @@
 package com.acn;
 
 import java.net.Proxy;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import com.acn.utility.AuthStrategy;
+import com.acn.utility.BasicAuth;
 import com.acn.utility.CloudConnector;
 import com.acn.utility.FormatXML;
 import com.acn.utility.HTTPClient;
+import com.acn.utility.LookupExecutor;
+import com.acn.utility.ResultCache;
 
 /**
  * The {@code HTTPLookup} class provides methods to perform HTTP GET and POST requests
  * with support for basic authentication and optional SAP Cloud Connector integration.
+ * Other authentication schemes, e.g. OAuth2 client credentials, are supported through {@link AuthStrategy}.
  */
 public class HTTPLookup {
 
-    private String user;
-    private String password;
+    private AuthStrategy auth;
     private boolean isCloudConnector;
     private CloudConnector cloudConnector;
+    private String locationID;
+    private ResultCache<String> resultCache;
+    private boolean requestCompression;
+
+    // bodies below this size are not worth compressing
+    private static final int COMPRESSION_MIN_LENGTH = 1024;
 
     /**
      * Constructs an {@code HTTPLookup} instance with basic authentication.
@@ -54,24 +64,86 @@ public class HTTPLookup {
      * @throws Exception if initialization fails
      */
     public HTTPLookup(String user, String password, boolean isCloudConnector, String locationID) throws Exception {
+        this(new BasicAuth(user, password), isCloudConnector, locationID);
+    }
+
+    /**
+     * Constructs an {@code HTTPLookup} instance with an authentication strategy.
+     *
+     * @param auth the authentication strategy
+     * @throws Exception if initialization fails
+     */
+    public HTTPLookup(AuthStrategy auth) throws Exception {
+        this(auth, false, null);
+    }
+
+    /**
+     * Constructs an {@code HTTPLookup} instance with an authentication strategy and optional Cloud Connector support.
+     *
+     * @param auth             the authentication strategy
+     * @param isCloudConnector flag indicating whether Cloud Connector is used
+     * @param locationID       the location ID for Cloud Connector
+     * @throws Exception if initialization fails
+     */
+    public HTTPLookup(AuthStrategy auth, boolean isCloudConnector, String locationID) throws Exception {
         super();
-        this.user = user;
-        this.password = password;
+        setAuthStrategy(auth);
         this.isCloudConnector = isCloudConnector;
+        this.locationID = locationID;
         if (isCloudConnector)
-            cloudConnector = new CloudConnector(locationID, "HTTP");
+            cloudConnector = CloudConnector.of(locationID, "HTTP");
+    }
+
+    /**
+     * Sets the authentication strategy used for subsequent requests.
+     *
+     * @param auth the authentication strategy
+     */
+    public void setAuthStrategy(AuthStrategy auth) {
+        if (auth == null)
+            throw new IllegalArgumentException("Authentication strategy must not be null.");
+        this.auth = auth;
+    }
+
+    /**
+     * Sets the cache used to answer repeated GET requests for the same endpoint and credentials.
+     *
+     * @param resultCache the result cache, or null to disable caching
+     */
+    public void setResultCache(ResultCache<String> resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Enables gzip compression of POST request bodies. Only enable it for targets accepting
+     * {@code Content-Encoding: gzip} requests; small bodies are always sent uncompressed.
+     *
+     * @param requestCompression whether to gzip request bodies
+     */
+    public void setRequestCompression(boolean requestCompression) {
+        this.requestCompression = requestCompression;
     }
 
     /**
      * Executes an HTTP GET request to the specified endpoint.
+     * If a {@link ResultCache} is set, repeated requests are answered from the cache.
      *
      * @param targetEndpoint the URL to send the GET request to
      * @return the response as a string
      * @throws Exception if the request fails
      */
     public String getCall(String targetEndpoint) throws Exception {
+        if (resultCache == null)
+            return executeGet(targetEndpoint);
+
+        String key = ResultCache.key("HTTP", auth.identity(),
+                isCloudConnector ? locationID : "", targetEndpoint);
+        return resultCache.getOrLoad(key, () -> executeGet(targetEndpoint), String::isEmpty);
+    }
+
+    private String executeGet(String targetEndpoint) throws Exception {
         Map<String, String> headers = new HashMap<>();
-        headers.put("Authorization", "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes()));
+        auth.apply(headers);
         headers.put("Accept", "application/json");
 
         Proxy proxy = null;
@@ -81,7 +153,7 @@ public class HTTPLookup {
             headers.putAll(cloudConnector.getProxyHeaders());
         }
 
-        return HTTPClient.externalCallWithHeaders(targetEndpoint, headers, "GET", null, proxy);
+        return HTTPClient.externalCall(targetEndpoint, headers, "GET", null, proxy, auth.identity());
     }
 
     /**
@@ -95,7 +167,7 @@ public class HTTPLookup {
      */
     public String postCall(String targetEndpoint, String body, Map<String, Object> addHeaders) throws Exception {
         Map<String, String> headers = new HashMap<>();
-        headers.put("Authorization", "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes()));
+        auth.apply(headers);
         headers.put("Accept", "application/json");
 
         addHeaders.forEach((K, V) -> {
@@ -103,6 +175,9 @@ public class HTTPLookup {
                 headers.put(K, V.toString());
         });
 
+        if (requestCompression && body != null && body.length() >= COMPRESSION_MIN_LENGTH)
+            headers.put("Content-Encoding", "gzip");
+
         Proxy proxy = null;
 
         if (isCloudConnector) {
@@ -110,7 +185,32 @@ public class HTTPLookup {
             headers.putAll(cloudConnector.getProxyHeaders());
         }
 
-        return HTTPClient.externalCallWithHeaders(targetEndpoint, headers, "POST", body, proxy);
+        return HTTPClient.externalCall(targetEndpoint, headers, "POST", body, proxy);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getCall(String)}, run by {@link LookupExecutor} with bounded
+     * concurrency per target host.
+     *
+     * @param targetEndpoint the URL to send the GET request to
+     * @return future completed with the response as a string
+     */
+    public CompletableFuture<String> getCallAsync(String targetEndpoint) {
+        return LookupExecutor.submit(LookupExecutor.httpBackend(targetEndpoint), () -> getCall(targetEndpoint));
+    }
+
+    /**
+     * Asynchronous variant of {@link #postCall(String, String, Map)}, run by {@link LookupExecutor} with bounded
+     * concurrency per target host.
+     *
+     * @param targetEndpoint the URL to send the POST request to
+     * @param body           the request body
+     * @param addHeaders     additional headers to include in the request
+     * @return future completed with the response as a string
+     */
+    public CompletableFuture<String> postCallAsync(String targetEndpoint, String body, Map<String, Object> addHeaders) {
+        return LookupExecutor.submit(LookupExecutor.httpBackend(targetEndpoint),
+                () -> postCall(targetEndpoint, body, addHeaders));
     }
 
     /**
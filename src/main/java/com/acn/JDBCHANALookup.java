@@ -1,17 +1,36 @@
 package com.acn;
 
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.ref.Cleaner;
+import java.math.BigDecimal;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.sql.DataSource;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
@@ -21,12 +40,27 @@ import org.w3c.dom.Element;
 
 import com.acn.utility.CloudConnector;
 import com.acn.utility.FormatXML;
+import com.acn.utility.JDBCConnectionPool;
+import com.acn.utility.LookupExecutor;
+import com.acn.utility.ResultCache;
+import com.acn.utility.StatementCache;
 import com.acn.utility.XMLUtility;
 
 public class JDBCHANALookup {
 
+	private static final int STATEMENT_CACHE_SIZE = 64;
+	private static final int DEFAULT_KEY_CHUNK_SIZE = 100;
+	private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
 	private CloudConnector cloudConnector;
 	private Connection connection;
+	private StatementCache statementCache;
+	private JDBCConnectionPool connectionPool;
+	private Cleaner.Cleanable pooledConnectionRelease;
+	private String connectionIdentity;
+	private ResultCache<String> resultCache;
+	private int fetchSize;
+	private final ReentrantLock connectionLock = new ReentrantLock();
 	
 	/**
 	 * Use constructor when JDBC {@link DataSource} is already configure in <a href="https://help.sap.com/docs/integration-suite/sap-integration-suite/managing-jdbc-data-sources?locale=en-US&version=LATEST">SAP CPI tenant</a>. This is also a recommended.
@@ -52,8 +86,10 @@ public class JDBCHANALookup {
 						+ " that not possible, still please review once and try to run again.");
 
 			DataSource dataSource = bundleContext.getService(listServiceReferences.get(0));
+			connectionIdentity = "DS:" + JDBCDataSourceName;
 			try {
 				connection = dataSource.getConnection();
+				statementCache = new StatementCache(connection, STATEMENT_CACHE_SIZE);
 			} catch (SQLException e) {
 				throw new Exception(e);
 			}
@@ -64,6 +100,10 @@ public class JDBCHANALookup {
 	
 	/**
 	 * Construct on-fly JDBC Connection instead of {@link DataSource}.
+	 * <p>
+	 * The connection is borrowed from a process-wide {@link JDBCConnectionPool} shared by all lookups with the same
+	 * URL, user and proxy settings, and is returned to the pool by {@link #connectionClose()}. A connection that is
+	 * never closed is reported as a leak and returned once this lookup is garbage collected.
 	 * 
 	 * @param JDBCURL
 	 * @param user
@@ -73,7 +113,7 @@ public class JDBCHANALookup {
 	 */
 	public JDBCHANALookup(String JDBCURL, String user, String password, Properties connectionProps) throws Exception {
 
-		cloudConnector = new CloudConnector("TCP");
+		cloudConnector = CloudConnector.of(null, "TCP");
 
 		// Setup JDBC Connection
 		if (connectionProps == null)
@@ -83,51 +123,365 @@ public class JDBCHANALookup {
 		connectionProps.put("proxyHostname", cloudConnector.getOnpremise_proxy_host());
 		connectionProps.put("proxyPort", Integer.toString(cloudConnector.getOnpremise_proxy_tcp_port()));
 		connectionProps.put("proxyUserName", cloudConnector.getProxyHeaders().get("Proxy-Authorization"));
+		connectionIdentity = "URL:" + JDBCURL + ":" + ResultCache.credentialsIdentity(user, password);
 		try {
-			connection = DriverManager.getConnection(JDBCURL, connectionProps);
+			connectionPool = JDBCConnectionPool.getPool(JDBCURL, connectionProps);
+			JDBCConnectionPool.PooledConnection pooledConnection = connectionPool.borrow();
+			connection = pooledConnection.getConnection();
+			statementCache = pooledConnection.getStatementCache();
+			pooledConnectionRelease = connectionPool.releaseOnCleanup(this, pooledConnection);
 		} catch (SQLException e) {
 			throw new Exception(e);
 		}
 	}
 
+	/**
+	 * Executes a literal SQL statement. The underlying {@link Statement} is closed together with the returned
+	 * {@link ResultSet}, so the caller must close the result set.
+	 * 
+	 * @param statement - SQL select statement
+	 * @return open result set
+	 * @throws Exception
+	 */
 	public ResultSet getResultSet(String statement) throws Exception {
+		connectionLock.lock();
 		try {
-			Statement stmt = connection.createStatement();
-			ResultSet rs = stmt.executeQuery(statement);
-			return rs;
+			Statement stmt = openConnection().createStatement();
+			try {
+				if (fetchSize > 0)
+					stmt.setFetchSize(fetchSize);
+				ResultSet rs = stmt.executeQuery(statement);
+				stmt.closeOnCompletion();
+				return rs;
+			} catch (SQLException e) {
+				stmt.close();
+				throw e;
+			}
 		} catch (SQLException e) {
 			throw new Exception(e);
+		} finally {
+			connectionLock.unlock();
 		}
 	}
 
-	public String getResultSetXML(String statement) throws Exception {
+	/**
+	 * Executes a parameterised SQL statement using a cached {@link PreparedStatement}, so the database parses
+	 * each distinct statement only once per connection. The caller must close the returned {@link ResultSet}.
+	 * While it is open, executing the same statement again uses a separate statement, see
+	 * {@link StatementCache#executeQuery(String, List, int)}.
+	 * 
+	 * @param statement - SQL select statement with {@code ?} placeholders
+	 * @param parameters - bind values, in placeholder order
+	 * @return open result set
+	 * @throws Exception
+	 */
+	public ResultSet getResultSet(String statement, List<?> parameters) throws Exception {
+		connectionLock.lock();
 		try {
-			ResultSet rs = this.getResultSet(statement);
+			openConnection();
+			return statementCache.executeQuery(statement, parameters, fetchSize);
+		} catch (SQLException e) {
+			throw new Exception(e);
+		} finally {
+			connectionLock.unlock();
+		}
+	}
+
+	/**
+	 * Sets the number of rows the JDBC driver fetches per round trip for statements executed from now on.
+	 * 
+	 * @param fetchSize - rows per fetch, 0 for the driver default
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = Math.max(0, fetchSize);
+	}
+
+	/**
+	 * Returns the prepared statement cache of this connection, e.g. to read its hit and miss counters.
+	 * 
+	 * @return statement cache
+	 */
+	public StatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	/**
+	 * Sets the cache used to answer repeated {@link #getResultSetXML(String)} calls for the same statement.
+	 * Results without any row are only cached when negative caching is enabled on the cache.
+	 * 
+	 * @param resultCache - the result cache, or null to disable caching
+	 */
+	public void setResultCache(ResultCache<String> resultCache) {
+		this.resultCache = resultCache;
+	}
+
+	public String getResultSetXML(String statement) throws Exception {
+		return getResultSetXML(statement, null);
+	}
+
+	/**
+	 * Executes a parameterised SQL statement and returns the rows as XML, see {@link #getResultSet(String, List)}.
+	 * 
+	 * @param statement - SQL select statement, with {@code ?} placeholders when parameters are given
+	 * @param parameters - bind values, in placeholder order, or null for a literal statement
+	 * @return XML with one {@code select_response} element per row
+	 * @throws Exception
+	 */
+	public String getResultSetXML(String statement, List<?> parameters) throws Exception {
+		if (resultCache == null)
+			return executeResultSetXML(statement, parameters, null);
+
+		// row count of the result loaded on a miss, for the empty check of the cache
+		int[] rows = new int[1];
+		return resultCache.getOrLoad(ResultCache.key("JDBC", connectionIdentity, statement, parameters),
+				() -> executeResultSetXML(statement, parameters, rows), xml -> rows[0] == 0);
+	}
+
+	private ResultSet execute(String statement, List<?> parameters) throws Exception {
+		return parameters == null ? getResultSet(statement) : getResultSet(statement, parameters);
+	}
+
+	private String executeResultSetXML(String statement, List<?> parameters, int[] rowCount) throws Exception {
+		return locked(() -> buildResultSetXML(statement, parameters, rowCount));
+	}
+
+	private String buildResultSetXML(String statement, List<?> parameters, int[] rowCount) throws Exception {
+		try (ResultSet rs = this.execute(statement, parameters)) {
 			XMLUtility xml = new XMLUtility("<ROOT/>");
 			Document document = xml.getDocument();
 			Element docElement = document.getDocumentElement();
 
 			ResultSetMetaData rsmd = rs.getMetaData();
 			int colCount = rsmd.getColumnCount();
+			int rows = 0;
 
 			while (rs.next()) {
 				Element row = document.createElement("select_response");
 				docElement.appendChild(row);
+				rows++;
 
 				for (int i = 1; i <= colCount; i++) {
 					String columnName = rsmd.getColumnName(i);
 					Object value = rs.getObject(i);
 					Element node = document.createElement(columnName);
-					node.appendChild(document.createTextNode(value.toString()));
+					if (value != null)
+						node.appendChild(document.createTextNode(value.toString()));
 					row.appendChild(node);
 				}
 			}
+			if (rowCount != null)
+				rowCount[0] = rows;
 			return xml.getDocumentString();
 		} catch (SQLException e) {
 			throw new Exception(e);
 		}
 	}
 
+	/**
+	 * Streaming variant of {@link #getResultSetXML(String)}: rows are written to the output while the
+	 * {@link ResultSet} is consumed, so memory does not grow with the number of rows. Combine with
+	 * {@link #setFetchSize(int)} for large selects.
+	 * 
+	 * @param statement - SQL select statement
+	 * @param out - UTF-8 output, not closed by this method
+	 * @return number of rows written
+	 * @throws Exception
+	 */
+	public long writeResultSetXML(String statement, OutputStream out) throws Exception {
+		return writeResultSetXML(statement, null, out);
+	}
+
+	/**
+	 * Streaming variant of {@link #getResultSetXML(String, List)}, see {@link #writeResultSetXML(String, OutputStream)}.
+	 * 
+	 * @param statement - SQL select statement, with {@code ?} placeholders when parameters are given
+	 * @param parameters - bind values, in placeholder order, or null for a literal statement
+	 * @param out - UTF-8 output, not closed by this method
+	 * @return number of rows written
+	 * @throws Exception
+	 */
+	public long writeResultSetXML(String statement, List<?> parameters, OutputStream out) throws Exception {
+		try {
+			return writeResultSetXML(statement, parameters, OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8"));
+		} catch (XMLStreamException e) {
+			throw new Exception(e);
+		}
+	}
+
+	/**
+	 * Streaming variant of {@link #getResultSetXML(String)} writing characters, see
+	 * {@link #writeResultSetXML(String, OutputStream)}.
+	 * 
+	 * @param statement - SQL select statement
+	 * @param out - output, not closed by this method
+	 * @return number of rows written
+	 * @throws Exception
+	 */
+	public long writeResultSetXML(String statement, Writer out) throws Exception {
+		return writeResultSetXML(statement, null, out);
+	}
+
+	/**
+	 * Streaming variant of {@link #getResultSetXML(String, List)} writing characters, see
+	 * {@link #writeResultSetXML(String, OutputStream)}.
+	 * 
+	 * @param statement - SQL select statement, with {@code ?} placeholders when parameters are given
+	 * @param parameters - bind values, in placeholder order, or null for a literal statement
+	 * @param out - output, not closed by this method
+	 * @return number of rows written
+	 * @throws Exception
+	 */
+	public long writeResultSetXML(String statement, List<?> parameters, Writer out) throws Exception {
+		try {
+			return writeResultSetXML(statement, parameters, OUTPUT_FACTORY.createXMLStreamWriter(out));
+		} catch (XMLStreamException e) {
+			throw new Exception(e);
+		}
+	}
+
+	/**
+	 * Writes the rows in the same structure as {@link #getResultSetXML(String)}. Values are formatted by column
+	 * type, see {@link #formatColumnValue(ResultSet, int, int)}; SQL NULLs are written as empty elements.
+	 */
+	private long writeResultSetXML(String statement, List<?> parameters, XMLStreamWriter writer) throws Exception {
+		connectionLock.lock();
+		try (ResultSet rs = this.execute(statement, parameters)) {
+			ResultSetMetaData rsmd = rs.getMetaData();
+			int colCount = rsmd.getColumnCount();
+			String[] names = new String[colCount + 1];
+			int[] types = new int[colCount + 1];
+			for (int i = 1; i <= colCount; i++) {
+				names[i] = rsmd.getColumnName(i);
+				types[i] = rsmd.getColumnType(i);
+			}
+
+			long rows = 0;
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement("ROOT");
+			while (rs.next()) {
+				writer.writeStartElement("select_response");
+				for (int i = 1; i <= colCount; i++) {
+					String value = formatColumnValue(rs, i, types[i]);
+					if (value == null) {
+						writer.writeEmptyElement(names[i]);
+					} else {
+						writer.writeStartElement(names[i]);
+						writer.writeCharacters(value);
+						writer.writeEndElement();
+					}
+				}
+				writer.writeEndElement();
+				rows++;
+			}
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.flush();
+			return rows;
+		} catch (SQLException | XMLStreamException e) {
+			throw new Exception(e);
+		} finally {
+			connectionLock.unlock();
+			writer.close();
+		}
+	}
+
+	/**
+	 * Formats a column value by its SQL type: decimals without exponent, dates and timestamps as ISO-8601,
+	 * binary data as Base64 and everything else as string.
+	 * 
+	 * @param rs - result set positioned on a row
+	 * @param column - column index
+	 * @param sqlType - column type from {@link Types}
+	 * @return formatted value, or null for SQL NULL
+	 * @throws SQLException
+	 */
+	public static String formatColumnValue(ResultSet rs, int column, int sqlType) throws SQLException {
+		switch (sqlType) {
+		case Types.NUMERIC:
+		case Types.DECIMAL:
+			BigDecimal decimal = rs.getBigDecimal(column);
+			return decimal != null ? decimal.toPlainString() : null;
+		case Types.DATE:
+			Date date = rs.getDate(column);
+			return date != null ? date.toLocalDate().toString() : null;
+		case Types.TIME:
+			Time time = rs.getTime(column);
+			return time != null ? time.toLocalTime().toString() : null;
+		case Types.TIMESTAMP:
+			Timestamp timestamp = rs.getTimestamp(column);
+			return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+		case Types.BINARY:
+		case Types.VARBINARY:
+		case Types.LONGVARBINARY:
+		case Types.BLOB:
+			byte[] bytes = rs.getBytes(column);
+			return bytes != null ? Base64.getEncoder().encodeToString(bytes) : null;
+		case Types.BOOLEAN:
+		case Types.BIT:
+			boolean flag = rs.getBoolean(column);
+			return rs.wasNull() ? null : Boolean.toString(flag);
+		default:
+			return rs.getString(column);
+		}
+	}
+
+	/**
+	 * Asynchronous variant of {@link #getResultSetXML(String, List)}, run by {@link LookupExecutor}. Statements of
+	 * the same lookup, asynchronous or not, are executed one at a time, as they share one JDBC connection.
+	 * 
+	 * @param statement - SQL select statement, with {@code ?} placeholders when parameters are given
+	 * @param parameters - bind values, in placeholder order, or null for a literal statement
+	 * @return future completed with the XML result
+	 */
+	public CompletableFuture<String> getResultSetXMLAsync(String statement, List<?> parameters) {
+		return submit(() -> getResultSetXML(statement, parameters));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #getResultRows(String, List, List)}, see
+	 * {@link #getResultSetXMLAsync(String, List)}.
+	 * 
+	 * @param statement - SQL select statement, with {@code ?} placeholders when parameters are given
+	 * @param parameters - bind values, in placeholder order, or null for a literal statement
+	 * @param outputList - columns to return, or null for all columns
+	 * @return future completed with the rows, or null if the statement returned no rows
+	 */
+	public CompletableFuture<List<Map<String, String>>> getResultRowsAsync(String statement, List<?> parameters,
+			List<String> outputList) {
+		return submit(() -> getResultRows(statement, parameters, outputList));
+	}
+
+	/**
+	 * Asynchronous variant of {@link #getResultOutput(String, List, List)}, see
+	 * {@link #getResultSetXMLAsync(String, List)}.
+	 * 
+	 * @param statement - SQL select statement, with {@code ?} placeholders when parameters are given
+	 * @param parameters - bind values, in placeholder order, or null for a literal statement
+	 * @param outputList - columns to return, or null for all columns
+	 * @return future completed with the column value lists, or null if the statement returned no rows
+	 */
+	public CompletableFuture<Map<String, List<String>>> getResultOutputAsync(String statement, List<?> parameters,
+			List<String> outputList) {
+		return submit(() -> getResultOutput(statement, parameters, outputList));
+	}
+
+	private <T> CompletableFuture<T> submit(Callable<T> task) {
+		return LookupExecutor.submit("JDBC|" + connectionIdentity, () -> locked(task));
+	}
+
+	/**
+	 * Runs the task holding the connection lock, so statements of concurrent callers do not interleave on the
+	 * shared connection and its cached statements.
+	 */
+	private <T> T locked(Callable<T> task) throws Exception {
+		connectionLock.lock();
+		try {
+			return task.call();
+		} finally {
+			connectionLock.unlock();
+		}
+	}
+
 	public Map<String, List<String>> formatResponseToOutput(String xmlString, List<String> outputList)
 			throws Exception {
 		return FormatXML.formatResponseToOutput(xmlString, "//select_response", outputList);
@@ -138,12 +492,348 @@ public class JDBCHANALookup {
 		return FormatXML.formatResponseToOutputRows(xmlString, "//select_response", outputList);
 	}
 	
-	public void connectionClose() throws Exception {
-		if(connection!=null)
-			try {
-				connection.close();
+	/**
+	 * Executes the statement and maps the {@link ResultSet} directly into rows, without the XML round trip of
+	 * {@link #getResultSetXML(String)} and {@link #formatResponseToOutputRows(String, List)}.
+	 * 
+	 * @param statement - SQL select statement
+	 * @param outputList - columns to return, or null for all columns
+	 * @return list of rows as column-value maps, or null if the statement returned no rows
+	 * @throws Exception
+	 */
+	public List<Map<String, String>> getResultRows(String statement, List<String> outputList) throws Exception {
+		return getResultRows(statement, null, outputList);
+	}
+
+	/**
+	 * Executes a parameterised SQL statement, see {@link #getResultSet(String, List)}, and maps the
+	 * {@link ResultSet} directly into rows.
+	 * 
+	 * @param statement - SQL select statement, with {@code ?} placeholders when parameters are given
+	 * @param parameters - bind values, in placeholder order, or null for a literal statement
+	 * @param outputList - columns to return, or null for all columns
+	 * @return list of rows as column-value maps, or null if the statement returned no rows
+	 * @throws Exception
+	 */
+	public List<Map<String, String>> getResultRows(String statement, List<?> parameters, List<String> outputList)
+			throws Exception {
+		return locked(() -> {
+			try (ResultSet rs = this.execute(statement, parameters)) {
+				return formatResultSetToOutputRows(rs, outputList);
 			} catch (SQLException e) {
 				throw new Exception(e);
 			}
+		});
+	}
+
+	/**
+	 * Executes the statement and maps the {@link ResultSet} directly into column value lists, without the XML
+	 * round trip of {@link #getResultSetXML(String)} and {@link #formatResponseToOutput(String, List)}.
+	 * 
+	 * @param statement - SQL select statement
+	 * @param outputList - columns to return, or null for all columns
+	 * @return map of column name to the list of its values, or null if the statement returned no rows
+	 * @throws Exception
+	 */
+	public Map<String, List<String>> getResultOutput(String statement, List<String> outputList) throws Exception {
+		return getResultOutput(statement, null, outputList);
+	}
+
+	/**
+	 * Executes a parameterised SQL statement, see {@link #getResultSet(String, List)}, and maps the
+	 * {@link ResultSet} directly into column value lists.
+	 * 
+	 * @param statement - SQL select statement, with {@code ?} placeholders when parameters are given
+	 * @param parameters - bind values, in placeholder order, or null for a literal statement
+	 * @param outputList - columns to return, or null for all columns
+	 * @return map of column name to the list of its values, or null if the statement returned no rows
+	 * @throws Exception
+	 */
+	public Map<String, List<String>> getResultOutput(String statement, List<?> parameters, List<String> outputList)
+			throws Exception {
+		return locked(() -> {
+			try (ResultSet rs = this.execute(statement, parameters)) {
+				return formatResultSetToOutput(rs, outputList);
+			} catch (SQLException e) {
+				throw new Exception(e);
+			}
+		});
+	}
+
+	/**
+	 * Maps the remaining rows of a {@link ResultSet} into column-value maps. SQL NULL values are returned as
+	 * empty strings and requested columns missing from the result set are returned as empty strings, the same
+	 * as {@link #formatResponseToOutputRows(String, List)}.
+	 * 
+	 * @param rs - result set positioned before its first row
+	 * @param outputList - columns to return, or null for all columns
+	 * @return list of rows as column-value maps, or null if the result set has no rows
+	 * @throws SQLException
+	 */
+	public static List<Map<String, String>> formatResultSetToOutputRows(ResultSet rs, List<String> outputList)
+			throws SQLException {
+		List<String> fields = outputFields(rs.getMetaData(), outputList);
+		int[] columns = columnIndexes(rs.getMetaData(), fields);
+
+		List<Map<String, String>> result = new ArrayList<>();
+		while (rs.next()) {
+			Map<String, String> row = new LinkedHashMap<>();
+			for (int i = 0; i < columns.length; i++)
+				row.put(fields.get(i), columnValue(rs, columns[i]));
+			result.add(row);
+		}
+		return result.isEmpty() ? null : result;
+	}
+
+	/**
+	 * Maps the remaining rows of a {@link ResultSet} into one value list per column. SQL NULL values are
+	 * returned as empty strings, the same as {@link #formatResponseToOutput(String, List)}.
+	 * 
+	 * @param rs - result set positioned before its first row
+	 * @param outputList - columns to return, or null for all columns
+	 * @return map of column name to the list of its values, or null if the result set has no rows
+	 * @throws SQLException
+	 */
+	public static Map<String, List<String>> formatResultSetToOutput(ResultSet rs, List<String> outputList)
+			throws SQLException {
+		List<String> fields = outputFields(rs.getMetaData(), outputList);
+		int[] columns = columnIndexes(rs.getMetaData(), fields);
+
+		Map<String, List<String>> result = new LinkedHashMap<>();
+		fields.forEach(field -> result.put(field, new ArrayList<>()));
+		boolean hasRows = false;
+		while (rs.next()) {
+			hasRows = true;
+			for (int i = 0; i < columns.length; i++)
+				result.get(fields.get(i)).add(columnValue(rs, columns[i]));
+		}
+		return hasRows ? result : null;
+	}
+
+	/**
+	 * Bulk key lookup, see {@link #getRowsByKeys(String, String, Collection, List, int)}, with chunks of 100 keys.
+	 * 
+	 * @param selectStatement - select statement without key condition, e.g. {@code SELECT MATNR, MAKTX FROM MAKT}
+	 * @param keyColumn - key column the keys are matched against; it must be part of the select list
+	 * @param keys - keys to look up, duplicates and nulls are ignored
+	 * @param outputList - columns to return per row, or null for all columns
+	 * @return map of key, as given by the caller, to its first matching row
+	 * @throws Exception
+	 */
+	public <K> Map<K, Map<String, String>> getRowsByKeys(String selectStatement, String keyColumn,
+			Collection<K> keys, List<String> outputList) throws Exception {
+		return getRowsByKeys(selectStatement, keyColumn, keys, outputList, DEFAULT_KEY_CHUNK_SIZE);
+	}
+
+	/**
+	 * Resolves many keys with a few round trips instead of one query per key. The distinct keys are split into
+	 * chunks and each chunk is queried as {@code SELECT * FROM (selectStatement) WHERE keyColumn IN (?,?,...)},
+	 * so the statement may contain its own {@code WHERE}, {@code GROUP BY} or joins. As it is wrapped, the
+	 * columns of the statement must have unique names: alias columns of joined tables that share a name,
+	 * e.g. {@code SELECT A.MATNR, B.MATNR AS B_MATNR ...}. The last chunk is padded with a repeated key so
+	 * every chunk uses the same cached {@link PreparedStatement}.
+	 * <p>
+	 * Rows are matched to the keys by value rather than by their string form, so e.g. the keys {@code 1} and
+	 * {@code 1L} both find the row of a DECIMAL key {@code 1.00}; rows are returned under the key object given.
+	 * 
+	 * @param selectStatement - select statement without key condition, e.g. {@code SELECT MATNR, MAKTX FROM MAKT}
+	 * @param keyColumn - key column the keys are matched against; it must be part of the select list
+	 * @param keys - keys to look up, duplicates and nulls are ignored
+	 * @param outputList - columns to return per row, or null for all columns
+	 * @param chunkSize - maximum number of keys per query
+	 * @return map of key, as given by the caller, to its first matching row; keys without a row are absent
+	 * @throws Exception
+	 */
+	public <K> Map<K, Map<String, String>> getRowsByKeys(String selectStatement, String keyColumn,
+			Collection<K> keys, List<String> outputList, int chunkSize) throws Exception {
+		if (chunkSize <= 0)
+			throw new IllegalArgumentException("Chunk size must be positive.");
+
+		// keys equal by value, e.g. 1 and 1L, are bound once; the first one given is returned
+		Map<String, K> distinctKeys = new LinkedHashMap<>();
+		for (K key : keys) {
+			if (key != null)
+				distinctKeys.putIfAbsent(keyValue(key), key);
+		}
+		Map<K, Map<String, String>> result = new LinkedHashMap<>();
+		if (distinctKeys.isEmpty())
+			return result;
+
+		int size = Math.min(chunkSize, distinctKeys.size());
+		// the key is matched on the select list of the wrapped statement, so a table qualifier does not apply
+		String column = keyColumn.substring(keyColumn.lastIndexOf('.') + 1);
+		StringBuilder sql = new StringBuilder("SELECT * FROM (").append(selectStatement.trim()).append(") KEY_LOOKUP");
+		sql.append(" WHERE ").append(column).append(" IN (");
+		for (int i = 0; i < size; i++)
+			sql.append(i == 0 ? "?" : ",?");
+		sql.append(')');
+
+		connectionLock.lock();
+		try {
+			queryKeyChunks(sql.toString(), keyColumn, distinctKeys, size, outputList, result);
+		} finally {
+			connectionLock.unlock();
+		}
+		return result;
+	}
+
+	private <K> void queryKeyChunks(String sql, String keyColumn, Map<String, K> distinctKeys, int size,
+			List<String> outputList, Map<K, Map<String, String>> result) throws Exception {
+		List<K> keys = new ArrayList<>(distinctKeys.values());
+		for (int from = 0; from < keys.size(); from += size) {
+			List<Object> chunk = new ArrayList<>(keys.subList(from, Math.min(from + size, keys.size())));
+			while (chunk.size() < size)
+				chunk.add(chunk.get(chunk.size() - 1));
+
+			try (ResultSet rs = this.getResultSet(sql, chunk)) {
+				ResultSetMetaData rsmd = rs.getMetaData();
+				requireUniqueColumns(rsmd);
+				int keyIndex = keyColumnIndex(rsmd, keyColumn);
+				List<String> fields = outputFields(rsmd, outputList);
+				int[] columns = columnIndexes(rsmd, fields);
+
+				while (rs.next()) {
+					Object value = rs.getObject(keyIndex);
+					K key = value != null ? distinctKeys.get(keyValue(value)) : null;
+					if (key == null || result.containsKey(key))
+						continue;
+					Map<String, String> row = new LinkedHashMap<>();
+					for (int i = 0; i < columns.length; i++)
+						row.put(fields.get(i), columnValue(rs, columns[i]));
+					result.put(key, row);
+				}
+			} catch (SQLException e) {
+				throw new Exception(e);
+			}
+		}
+	}
+
+	/**
+	 * Normalises a key for matching the bound keys with the key column values read back: numbers by their
+	 * decimal value without trailing zeros, JDBC dates and times as their {@code java.time} text, binary keys as
+	 * Base64 and everything else as string.
+	 */
+	private static String keyValue(Object key) {
+		if (key instanceof BigDecimal)
+			return ((BigDecimal) key).stripTrailingZeros().toPlainString();
+		if (key instanceof Number) {
+			try {
+				return new BigDecimal(key.toString()).stripTrailingZeros().toPlainString();
+			} catch (NumberFormatException e) {
+				return key.toString(); // NaN and infinity
+			}
+		}
+		if (key instanceof Timestamp)
+			return ((Timestamp) key).toLocalDateTime().toString();
+		if (key instanceof Date)
+			return ((Date) key).toLocalDate().toString();
+		if (key instanceof Time)
+			return ((Time) key).toLocalTime().toString();
+		if (key instanceof byte[])
+			return Base64.getEncoder().encodeToString((byte[]) key);
+		return key.toString();
+	}
+
+	private static void requireUniqueColumns(ResultSetMetaData rsmd) throws Exception {
+		Set<String> names = new HashSet<>();
+		for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+			if (!names.add(rsmd.getColumnName(i).toUpperCase()))
+				throw new Exception("Column " + rsmd.getColumnName(i)
+						+ " occurs more than once in the key lookup statement, give the columns unique aliases.");
+		}
+	}
+
+	private static int keyColumnIndex(ResultSetMetaData rsmd, String keyColumn) throws Exception {
+		String name = keyColumn.substring(keyColumn.lastIndexOf('.') + 1).replace("\"", "");
+		for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+			if (rsmd.getColumnName(i).equalsIgnoreCase(name))
+				return i;
+		}
+		throw new Exception("Key column " + keyColumn + " must be part of the select list.");
+	}
+
+	private static List<String> outputFields(ResultSetMetaData rsmd, List<String> outputList) throws SQLException {
+		if (outputList != null)
+			return outputList;
+		List<String> fields = new ArrayList<>();
+		for (int i = 1; i <= rsmd.getColumnCount(); i++)
+			fields.add(rsmd.getColumnName(i));
+		return fields;
+	}
+
+	/**
+	 * Resolves each output field to its column index once per result set, 0 when the column does not exist.
+	 */
+	private static int[] columnIndexes(ResultSetMetaData rsmd, List<String> fields) throws SQLException {
+		int[] columns = new int[fields.size()];
+		int colCount = rsmd.getColumnCount();
+		for (int f = 0; f < columns.length; f++) {
+			for (int i = 1; i <= colCount; i++) {
+				if (rsmd.getColumnName(i).equals(fields.get(f))) {
+					columns[f] = i;
+					break;
+				}
+			}
+		}
+		return columns;
+	}
+
+	private static String columnValue(ResultSet rs, int column) throws SQLException {
+		if (column == 0)
+			return "";
+		Object value = rs.getObject(column);
+		return value != null ? value.toString() : "";
+	}
+
+	/**
+	 * Returns the connection pool used by this lookup, e.g. to configure it or read its metrics.
+	 * 
+	 * @return connection pool, or null when the lookup uses a {@link DataSource}
+	 */
+	public JDBCConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+	/**
+	 * Returns the connection of this lookup, failing once {@link #connectionClose()} has been called: a pooled
+	 * connection may already be borrowed by another lookup by then.
+	 */
+	private Connection openConnection() throws SQLException {
+		if (connection == null)
+			throw new SQLException("JDBC lookup is closed, create a new lookup to execute further statements.");
+		return connection;
+	}
+
+	/**
+	 * Closes the connection, or returns it to the {@link JDBCConnectionPool}. Statements executed on this lookup
+	 * afterwards fail; calling this method again has no effect.
+	 *
+	 * @throws Exception
+	 */
+	public void connectionClose() throws Exception {
+		connectionLock.lock();
+		try {
+			Connection closing = connection;
+			StatementCache closingStatements = statementCache;
+			Cleaner.Cleanable release = pooledConnectionRelease;
+			connection = null;
+			statementCache = null;
+			pooledConnectionRelease = null;
+
+			if (release != null) {
+				release.clean();
+				return;
+			}
+			if (closingStatements != null)
+				closingStatements.close();
+			if (closing != null)
+				try {
+					closing.close();
+				} catch (SQLException e) {
+					throw new Exception(e);
+				}
+		} finally {
+			connectionLock.unlock();
+		}
 	}
 }
\ No newline at end of file
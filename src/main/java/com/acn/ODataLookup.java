@@ -1,37 +1,72 @@
 package com.acn;
 
+import java.io.Writer;
 import java.net.Proxy;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.json.JSONObject;
 import org.json.XML;
 
+import com.acn.utility.AuthStrategy;
+import com.acn.utility.BasicAuth;
+import com.acn.utility.BundleShutdown;
 import com.acn.utility.CloudConnector;
 import com.acn.utility.FormatXML;
 import com.acn.utility.HTTPClient;
+import com.acn.utility.JSONStreamReader;
+import com.acn.utility.LRUResultCache;
+import com.acn.utility.LookupExecutor;
+import com.acn.utility.ODataBatch;
+import com.acn.utility.ODataJSON;
+import com.acn.utility.ODataQuery;
+import com.acn.utility.ResultCache;
 
 /**
  * Utility class for performing OData lookups via HTTP GET requests.
  * Supports optional use of SAP Cloud Connector.
- * <b>Currently support only Basic Authentication</b>
+ * Uses Basic Authentication unless another {@link AuthStrategy}, e.g. OAuth2 client credentials, is given.
  */
 public class ODataLookup {
 
-    private static final String AUTH_HEADER = "Authorization";
     private static final String ACCEPT_HEADER = "Accept";
     private static final String ACCEPT_TYPE_JSON = "application/json";
     private static final String HTTP_METHOD_GET = "GET";
     private static final String CLOUD_CONNECTOR_PROTOCOL = "HTTP";
     private static final String XML_RESULT_PATH = "//results";
+    private static final String CSRF_HEADER = "X-CSRF-Token";
 
-    private final String user;
-    private final String password;
+    // CSRF token and session cookies per service root and credentials, reused across batch calls
+    private static final LRUResultCache<String[]> CSRF_SESSIONS = new LRUResultCache<>(256, 1024 * 1024,
+            30 * 60 * 1000L, session -> 2L * (session[0].length() + session[1].length()));
+
+    static {
+        BundleShutdown.onStop(CSRF_SESSIONS::clear);
+    }
+
+    private final AuthStrategy auth;
     private final boolean isCloudConnector;
     private final CloudConnector cloudConnector;
+    private final String locationID;
+    private ResultCache<String> resultCache;
+    private ODataQuery.Version odataVersion;
+    // OData version announced by each service root, see serviceVersion(String)
+    private final Map<String, ODataQuery.Version> serviceVersions = new ConcurrentHashMap<>();
 
     /**
      * Constructor without Cloud Connector.
@@ -54,14 +89,54 @@ public class ODataLookup {
      * @throws Exception 
      */
     public ODataLookup(String user, String password, boolean isCloudConnector, String locationID) throws Exception {
-        this.user = user;
-        this.password = password;
+        this(new BasicAuth(user, password), isCloudConnector, locationID);
+    }
+
+    /**
+     * Constructor with an authentication strategy, without Cloud Connector.
+     * @throws Exception 
+     */
+    public ODataLookup(AuthStrategy auth) throws Exception {
+        this(auth, false, null);
+    }
+
+    /**
+     * Full constructor with an authentication strategy, Cloud Connector and location ID.
+     * @throws Exception 
+     */
+    public ODataLookup(AuthStrategy auth, boolean isCloudConnector, String locationID) throws Exception {
+        if (auth == null)
+            throw new IllegalArgumentException("Authentication strategy must not be null.");
+        this.auth = auth;
         this.isCloudConnector = isCloudConnector;
-        this.cloudConnector = isCloudConnector ? new CloudConnector(locationID, CLOUD_CONNECTOR_PROTOCOL) : null;
+        this.locationID = locationID;
+        this.cloudConnector = isCloudConnector ? CloudConnector.of(locationID, CLOUD_CONNECTOR_PROTOCOL) : null;
+    }
+
+    /**
+     * Sets the cache used to answer repeated calls for the same endpoint and credentials.
+     *
+     * @param resultCache the result cache, or null to disable caching
+     */
+    public void setResultCache(ResultCache<String> resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Sets the OData version of the services queried with typed key predicates, which decides the literal
+     * syntax of the pushed-down {@code $filter}, see {@link ODataQuery#literal(Object, ODataQuery.Version)}.
+     * When not set, the version is taken from the {@code OData-Version} header of the service document,
+     * requested once per service root.
+     *
+     * @param odataVersion the OData version, or null to detect it
+     */
+    public void setODataVersion(ODataQuery.Version odataVersion) {
+        this.odataVersion = odataVersion;
     }
 
     /**
      * Makes an HTTP GET call to the target endpoint and returns the response as an XML string (Please note that oData Call will be made for JSON).
+     * If a {@link ResultCache} is set, repeated calls are answered from the cache.
      *
      * @param targetEndpoint the URL to call
      * @return XML string converted from JSON response
@@ -72,26 +147,429 @@ public class ODataLookup {
             throw new IllegalArgumentException("Target endpoint must not be null or empty.");
         }
 
-        Map<String, String> headers = new HashMap<>();
-        String credentials = Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
-        headers.put(AUTH_HEADER, "Basic " + credentials);
-        headers.put(ACCEPT_HEADER, ACCEPT_TYPE_JSON);
+        if (resultCache == null)
+            return executeGet(targetEndpoint);
 
-        Proxy proxy = null;
+        String key = ResultCache.key("ODATA", auth.identity(),
+                isCloudConnector ? locationID : "", targetEndpoint);
+        return resultCache.getOrLoad(key, () -> executeGet(targetEndpoint), String::isEmpty);
+    }
 
-        if (isCloudConnector && cloudConnector != null) {
-            proxy = cloudConnector.getProxy();
-            headers.putAll(cloudConnector.getProxyHeaders());
+    /**
+     * Queries an entity set, fetching only the properties in the output list of the entities matching the key
+     * predicates ({@code $select}, {@code $filter} and {@code $top} are generated, see {@link ODataQuery}).
+     *
+     * @param serviceRoot   the service root URL
+     * @param entitySet     the entity set name
+     * @param keyPredicates property-value pairs the entities must match, or null
+     * @param outputList    properties to fetch
+     * @param top           maximum number of entities, 0 for no limit
+     * @return XML string converted from JSON response
+     * @throws Exception if the HTTP call or conversion fails
+     */
+    public String getCall(String serviceRoot, String entitySet, Map<String, ?> keyPredicates, List<String> outputList,
+                          int top) throws Exception {
+        return getCall(queryUrl(serviceRoot, entitySet, keyPredicates, outputList, top));
+    }
+
+    private String queryUrl(String serviceRoot, String entitySet, Map<String, ?> keyPredicates,
+                            List<String> outputList, int top) throws Exception {
+        ODataQuery.Version version = keyPredicates == null || keyPredicates.isEmpty() ? ODataQuery.Version.V2
+                : serviceVersion(serviceRoot);
+        return ODataQuery.buildUrl(serviceRoot, entitySet, keyPredicates, outputList, top, version);
+    }
+
+    /**
+     * Returns the version set with {@link #setODataVersion(ODataQuery.Version)}, else the one announced by the
+     * service document of the service root.
+     */
+    private ODataQuery.Version serviceVersion(String serviceRoot) throws Exception {
+        if (odataVersion != null)
+            return odataVersion;
+        String root = serviceRoot.endsWith("/") ? serviceRoot : serviceRoot + "/";
+        ODataQuery.Version version = serviceVersions.get(root);
+        if (version == null) {
+            HttpResponse<byte[]> response = HTTPClient.exchange(root, requestHeaders(), HTTP_METHOD_GET, null, proxy());
+            if (response.statusCode() >= 299) {
+                throw new Exception("Unable to read the OData version of " + root + " [" + response.statusCode()
+                        + "]");
+            }
+            version = ODataQuery.Version.of(response.headers().firstValue("OData-Version").orElse(null));
+            serviceVersions.put(root, version);
         }
+        return version;
+    }
+
+    private String executeGet(String targetEndpoint) {
+        return XML.toString(new JSONObject(getCallJSON(targetEndpoint)));
+    }
 
+    /**
+     * Makes an HTTP GET call to the target endpoint and returns the JSON response as is.
+     *
+     * @param targetEndpoint the URL to call
+     * @return JSON response
+     */
+    public String getCallJSON(String targetEndpoint) {
         try {
-            String jsonResponse = HTTPClient.externalCall(targetEndpoint, headers, HTTP_METHOD_GET, null, proxy);
-            return XML.toString(new JSONObject(jsonResponse));
+            return HTTPClient.externalCall(targetEndpoint, requestHeaders(), HTTP_METHOD_GET, null, proxy(),
+                    auth.identity());
         } catch (Exception e) {
             throw new RuntimeException("Failed to perform GET call to endpoint: " + targetEndpoint, e);
         }
     }
 
+    /**
+     * Makes an HTTP GET call and extracts the requested fields directly from the JSON response (V2
+     * {@code d.results} / {@code d} or V4 {@code value} / entity), without the XML conversion of
+     * {@link #getCall(String)} and the DOM parsing of {@link #formatResponseToOutputRows(String, List)}.
+     * If a {@link ResultCache} is set, the JSON response of repeated calls is answered from the cache.
+     *
+     * @param targetEndpoint the URL to call
+     * @param outputList     list of fields to extract
+     * @return list of maps representing rows, empty if the response has no entities
+     * @throws Exception if the HTTP call or parsing fails
+     */
+    public List<Map<String, String>> getCallRows(String targetEndpoint, List<String> outputList) throws Exception {
+        return formatJSONToOutputRows(fetchJSON(targetEndpoint), outputList);
+    }
+
+    /**
+     * Makes an HTTP GET call and extracts the requested fields directly from the JSON response as one value
+     * list per field, see {@link #getCallRows(String, List)}.
+     *
+     * @param targetEndpoint the URL to call
+     * @param outputList     list of fields to extract
+     * @return map of field names to lists of values
+     * @throws Exception if the HTTP call or parsing fails
+     */
+    public Map<String, List<String>> getCallOutput(String targetEndpoint, List<String> outputList) throws Exception {
+        return formatJSONToOutput(fetchJSON(targetEndpoint), outputList);
+    }
+
+    /**
+     * Queries an entity set with {@code $select}, {@code $filter} and {@code $top} pushed down (see
+     * {@link ODataQuery}) and extracts the rows directly from the JSON response.
+     *
+     * @param serviceRoot   the service root URL
+     * @param entitySet     the entity set name
+     * @param keyPredicates property-value pairs the entities must match, or null
+     * @param outputList    properties to fetch
+     * @param top           maximum number of entities, 0 for no limit
+     * @return list of maps representing rows, empty if no entity matches
+     * @throws Exception if the HTTP call or parsing fails
+     */
+    public List<Map<String, String>> getCallRows(String serviceRoot, String entitySet, Map<String, ?> keyPredicates,
+                                                 List<String> outputList, int top) throws Exception {
+        return getCallRows(queryUrl(serviceRoot, entitySet, keyPredicates, outputList, top), outputList);
+    }
+
+    /**
+     * Makes an HTTP GET call and streams the rows to a consumer while the response is still being received.
+     * The JSON is read token by token and never held in memory as a whole, so this suits responses too large
+     * for {@link #getCallRows(String, List)}. Results are not cached.
+     *
+     * @param targetEndpoint the URL to call
+     * @param outputList     list of fields to extract
+     * @param rowConsumer    receives each row as soon as its entity has been read
+     * @return number of rows passed to the consumer
+     * @throws Exception if the HTTP call or parsing fails
+     */
+    public long getCallRowsStreaming(String targetEndpoint, List<String> outputList,
+                                     Consumer<Map<String, String>> rowConsumer) throws Exception {
+        if (targetEndpoint == null || targetEndpoint.isEmpty() || outputList == null) {
+            throw new IllegalArgumentException("Target endpoint and output list must not be null or empty.");
+        }
+        try (JSONStreamReader reader = new JSONStreamReader(
+                HTTPClient.externalCallStream(targetEndpoint, requestHeaders(), HTTP_METHOD_GET, null, proxy()))) {
+            return ODataJSON.streamRows(reader, outputList, rowConsumer);
+        }
+    }
+
+    /**
+     * Makes an HTTP GET call and writes the response as XML, in the format of {@link #getCall(String)}, while
+     * the response is still being received. Results are not cached.
+     *
+     * @param targetEndpoint the URL to call
+     * @param out            receives the XML
+     * @throws Exception if the HTTP call, parsing or writing fails
+     */
+    public void getCallXML(String targetEndpoint, Writer out) throws Exception {
+        if (targetEndpoint == null || targetEndpoint.isEmpty()) {
+            throw new IllegalArgumentException("Target endpoint must not be null or empty.");
+        }
+        try (JSONStreamReader reader = new JSONStreamReader(
+                HTTPClient.externalCallStream(targetEndpoint, requestHeaders(), HTTP_METHOD_GET, null, proxy()))) {
+            ODataJSON.writeXML(reader, out);
+        }
+    }
+
+    private String fetchJSON(String targetEndpoint) throws Exception {
+        if (targetEndpoint == null || targetEndpoint.isEmpty()) {
+            throw new IllegalArgumentException("Target endpoint must not be null or empty.");
+        }
+        if (resultCache == null)
+            return getCallJSON(targetEndpoint);
+
+        String key = ResultCache.key("ODATA-JSON", auth.identity(),
+                isCloudConnector ? locationID : "", targetEndpoint);
+        return resultCache.getOrLoad(key, () -> getCallJSON(targetEndpoint), String::isEmpty);
+    }
+
+    /**
+     * Returns an iterator over all rows of a paged entity set, following server-driven paging links
+     * ({@code __next} in V2, {@code @odata.nextLink} in V4). Pages are fetched on demand and the next page is
+     * prefetched while the current one is consumed, so only about two pages are held in memory. Close the
+     * iterator when stopping before the last row, so a prefetch still in flight is cancelled.
+     *
+     * @param targetEndpoint the URL of the first page
+     * @param outputList     list of fields to extract per row
+     * @return lazy iterator over the rows of all pages
+     */
+    public PageIterator getPagedRows(String targetEndpoint, List<String> outputList) {
+        return getPagedRows(targetEndpoint, outputList, true);
+    }
+
+    /**
+     * Returns an iterator over all rows of a paged entity set, see {@link #getPagedRows(String, List)}.
+     *
+     * @param targetEndpoint the URL of the first page
+     * @param outputList     list of fields to extract per row
+     * @param prefetch       whether to fetch the next page in the background while the current one is consumed
+     * @return lazy iterator over the rows of all pages
+     */
+    public PageIterator getPagedRows(String targetEndpoint, List<String> outputList, boolean prefetch) {
+        if (targetEndpoint == null || targetEndpoint.isEmpty() || outputList == null) {
+            throw new IllegalArgumentException("Target endpoint and output list must not be null or empty.");
+        }
+        return new PageIterator(targetEndpoint, outputList, prefetch);
+    }
+
+    /**
+     * Returns a sequential stream over all rows of a paged entity set, see {@link #getPagedRows(String, List)}.
+     * Closing the stream, e.g. with try-with-resources, cancels a prefetch still in flight.
+     *
+     * @param targetEndpoint the URL of the first page
+     * @param outputList     list of fields to extract per row
+     * @return lazy stream over the rows of all pages
+     */
+    public Stream<Map<String, String>> streamPagedRows(String targetEndpoint, List<String> outputList) {
+        PageIterator rows = getPagedRows(targetEndpoint, outputList);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(rows::close);
+    }
+
+    /**
+     * Rows of one page together with the link to the next page.
+     */
+    private static final class Page {
+        final List<Map<String, String>> rows = new ArrayList<>();
+        final String nextLink;
+
+        Page(JSONObject response, String url, List<String> outputList) {
+            rows.addAll(ODataJSON.toRows(response, outputList));
+            nextLink = ODataJSON.nextLink(response, url);
+        }
+    }
+
+    /**
+     * Iterates page by page, keeping at most one page ahead in flight.
+     */
+    public final class PageIterator implements Iterator<Map<String, String>>, AutoCloseable {
+        private final List<String> outputList;
+        private final boolean prefetch;
+        private Iterator<Map<String, String>> current = Collections.emptyIterator();
+        private CompletableFuture<Page> next;
+        private String nextUrl;
+
+        private PageIterator(String firstUrl, List<String> outputList, boolean prefetch) {
+            this.outputList = outputList;
+            this.prefetch = prefetch;
+            this.nextUrl = firstUrl;
+        }
+
+        private CompletableFuture<Page> fetch(String url) {
+            return LookupExecutor.submit(LookupExecutor.httpBackend(url), () -> loadPage(url));
+        }
+
+        private Page loadPage(String url) {
+            return new Page(new JSONObject(getCallJSON(url)), url, outputList);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && (next != null || nextUrl != null)) {
+                Page page;
+                if (next != null) {
+                    try {
+                        page = next.join();
+                    } catch (CompletionException e) {
+                        throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                    }
+                    next = null;
+                } else {
+                    page = loadPage(nextUrl);
+                }
+                nextUrl = page.nextLink;
+                if (nextUrl != null && prefetch) {
+                    next = fetch(nextUrl);
+                    nextUrl = null;
+                }
+                current = page.rows.iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Map<String, String> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return current.next();
+        }
+
+        /**
+         * Stops the iteration: a prefetch still waiting or in flight is cancelled and no further pages are fetched.
+         */
+        @Override
+        public void close() {
+            if (next != null)
+                next.cancel(true);
+            next = null;
+            nextUrl = null;
+            current = Collections.emptyIterator();
+        }
+    }
+
+    private Map<String, String> requestHeaders() throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        auth.apply(headers);
+        headers.put(ACCEPT_HEADER, ACCEPT_TYPE_JSON);
+
+        if (isCloudConnector && cloudConnector != null) {
+            headers.putAll(cloudConnector.getProxyHeaders());
+        }
+        return headers;
+    }
+
+    private Proxy proxy() {
+        return (isCloudConnector && cloudConnector != null) ? cloudConnector.getProxy() : null;
+    }
+
+    /**
+     * Executes several GET requests in a single OData {@code $batch} round trip and returns the responses in
+     * request order, each converted to XML the same way as {@link #getCall(String)}.
+     * <p>
+     * The CSRF token required for the batch POST is fetched once per service root and credentials and reused
+     * by later batch calls; it is fetched again when the service rejects it.
+     *
+     * @param serviceRoot the service root URL, e.g. {@code https://host/sap/opu/odata/sap/API_PRODUCT_SRV}
+     * @param requestUrls entity or query URLs, either absolute below the service root or relative to it
+     * @return one XML string per request; null for a request answered with 404 Not Found
+     * @throws Exception if the batch call fails or any request fails with another error status
+     */
+    public List<String> getBatchCall(String serviceRoot, List<String> requestUrls) throws Exception {
+        if (serviceRoot == null || serviceRoot.isEmpty() || requestUrls == null) {
+            throw new IllegalArgumentException("Service root and request URLs must not be null or empty.");
+        }
+        String root = serviceRoot.endsWith("/") ? serviceRoot.substring(0, serviceRoot.length() - 1) : serviceRoot;
+        List<String> results = new ArrayList<>();
+        if (requestUrls.isEmpty())
+            return results;
+
+        List<String> relativeUrls = new ArrayList<>();
+        for (String url : requestUrls) {
+            String relative = url.startsWith(root) ? url.substring(root.length()) : url;
+            relativeUrls.add(relative.startsWith("/") ? relative.substring(1) : relative);
+        }
+
+        ODataBatch batch = new ODataBatch();
+        String body = batch.buildRequest(relativeUrls, ACCEPT_TYPE_JSON);
+        String sessionKey = ResultCache.key(root, auth.identity(), locationID);
+
+        HttpResponse<byte[]> response = postBatch(root, batch, body, csrfSession(root, sessionKey, false));
+        if (response.statusCode() == 403 && response.headers().firstValue(CSRF_HEADER)
+                .map("Required"::equalsIgnoreCase).orElse(false)) {
+            response = postBatch(root, batch, body, csrfSession(root, sessionKey, true));
+        }
+
+        String responseBody = new String(response.body(), StandardCharsets.UTF_8);
+        if (response.statusCode() >= 299) {
+            throw new Exception("Error while calling " + root + "/$batch [" + response.statusCode() + "] Message: "
+                    + responseBody);
+        }
+
+        List<ODataBatch.Part> parts = ODataBatch.parseResponse(
+                response.headers().firstValue("Content-Type").orElse(null), responseBody);
+        if (parts.size() != requestUrls.size()) {
+            throw new Exception("Batch response contains " + parts.size() + " responses for "
+                    + requestUrls.size() + " requests.");
+        }
+
+        for (int i = 0; i < parts.size(); i++) {
+            ODataBatch.Part part = parts.get(i);
+            if (part.getStatusCode() == 404) {
+                results.add(null);
+            } else if (part.getStatusCode() >= 299) {
+                throw new Exception("Batch request " + requestUrls.get(i) + " failed [" + part.getStatusCode()
+                        + "] Message: " + part.getBody());
+            } else {
+                results.add(XML.toString(new JSONObject(part.getBody())));
+            }
+        }
+        return results;
+    }
+
+    private HttpResponse<byte[]> postBatch(String root, ODataBatch batch, String body, String[] session)
+            throws Exception {
+        Map<String, String> headers = requestHeaders();
+        headers.put("Content-Type", batch.getContentType());
+        headers.put(ACCEPT_HEADER, "multipart/mixed");
+        headers.put(CSRF_HEADER, session[0]);
+        if (!session[1].isEmpty())
+            headers.put("Cookie", session[1]);
+        return HTTPClient.exchange(root + "/$batch", headers, "POST", body, proxy());
+    }
+
+    /**
+     * Returns the cached CSRF token and session cookies for the service, fetching them when missing or stale.
+     */
+    private String[] csrfSession(String root, String sessionKey, boolean refresh) throws Exception {
+        if (refresh)
+            CSRF_SESSIONS.invalidate(sessionKey);
+        return CSRF_SESSIONS.getOrLoad(sessionKey, () -> fetchCsrfSession(root), session -> false);
+    }
+
+    private String[] fetchCsrfSession(String root) throws Exception {
+        Map<String, String> headers = requestHeaders();
+        headers.put(CSRF_HEADER, "Fetch");
+        HttpResponse<byte[]> response = HTTPClient.exchange(root + "/", headers, HTTP_METHOD_GET, null, proxy());
+        String token = response.headers().firstValue(CSRF_HEADER).orElse(null);
+        if (token == null || token.equalsIgnoreCase("Required")) {
+            throw new Exception("Unable to fetch CSRF token from " + root + " [" + response.statusCode() + "]");
+        }
+
+        StringBuilder cookies = new StringBuilder();
+        for (String setCookie : response.headers().allValues("Set-Cookie")) {
+            if (cookies.length() > 0)
+                cookies.append("; ");
+            int end = setCookie.indexOf(';');
+            cookies.append(end >= 0 ? setCookie.substring(0, end) : setCookie);
+        }
+
+        return new String[] { token, cookies.toString() };
+    }
+
+    /**
+     * Asynchronous variant of {@link #getCall(String)}, run by {@link LookupExecutor} with bounded
+     * concurrency per target host.
+     *
+     * @param targetEndpoint the URL to call
+     * @return future completed with the XML string converted from the JSON response
+     */
+    public CompletableFuture<String> getCallAsync(String targetEndpoint) {
+        return LookupExecutor.submit(LookupExecutor.httpBackend(targetEndpoint), () -> getCall(targetEndpoint));
+    }
+
     /**
      * Formats the XML response into a map of output fields.
      *
@@ -121,4 +599,34 @@ public class ODataLookup {
         }
         return FormatXML.formatResponseToOutputRows(xmlString, XML_RESULT_PATH, outputList);
     }
-}
\ No newline at end of file
+
+    /**
+     * Extracts the requested fields directly from an OData JSON response into rows.
+     *
+     * @param jsonString  the JSON response string
+     * @param outputList  list of fields to extract
+     * @return list of maps representing rows, empty if the response has no entities
+     * @throws Exception if parsing fails
+     */
+    public List<Map<String, String>> formatJSONToOutputRows(String jsonString, List<String> outputList) throws Exception {
+        if (jsonString == null || outputList == null) {
+            throw new IllegalArgumentException("JSON string and output list must not be null.");
+        }
+        return ODataJSON.toRows(new JSONObject(jsonString), outputList);
+    }
+
+    /**
+     * Extracts the requested fields directly from an OData JSON response into a map of output fields.
+     *
+     * @param jsonString  the JSON response string
+     * @param outputList  list of fields to extract
+     * @return map of field names to list of values
+     * @throws Exception if parsing fails
+     */
+    public Map<String, List<String>> formatJSONToOutput(String jsonString, List<String> outputList) throws Exception {
+        if (jsonString == null || outputList == null) {
+            throw new IllegalArgumentException("JSON string and output list must not be null.");
+        }
+        return ODataJSON.toColumns(new JSONObject(jsonString), outputList);
+    }
+}
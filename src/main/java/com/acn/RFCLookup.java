@@ -1,10 +1,33 @@
 package com.acn;
 
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.acn.utility.LRUResultCache;
+import com.acn.utility.LookupExecutor;
+import com.acn.utility.RFCFunctionPlan;
+import com.acn.utility.RFCRequestKey;
+import com.acn.utility.RFCResult;
+import com.acn.utility.RFCRowHandler;
+import com.acn.utility.ResultCache;
 import com.acn.utility.XMLUtility;
 import com.sap.conn.jco.*;
 
@@ -12,11 +35,29 @@ import com.sap.conn.jco.*;
  * RFCLookup is a utility class for invoking SAP RFC (Remote Function Call) modules
  * using XML-based request and response formats.
  * It supports both import parameters and table parameters.
+ * <p>
+ * {@link #getResult(String, Map)} offers the same calls without XML: parameters are passed as Java maps and the
+ * result is read directly from the JCo parameter lists into an {@link RFCResult}.
+ * <p>
+ * Results of read-only function modules can be cached per destination and function, see
+ * {@link #enableResultCache(String, String, int, long, long)}.
+ * <p>
+ * Function templates are cached per destination together with a compiled {@link RFCFunctionPlan}, so repeated
+ * calls of the same function module skip the repository lookup and map parameters by index.
  */
 public class RFCLookup {
 
+    // function plans per destination and function name, shared by all lookups
+    private static final Map<String, RFCFunctionPlan> PLANS = new ConcurrentHashMap<>();
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    // result caches of the whitelisted function modules per destination and function name
+    private static final Map<String, LRUResultCache<Object>> RESULT_CACHES = new ConcurrentHashMap<>();
+
     private JCoDestination destination;
     private JCoRepository repo;
+    private int batchSessions = 1;
 
     /**
      * Initializes the RFC lookup with a given SAP destination.
@@ -29,33 +70,106 @@ public class RFCLookup {
         repo = destination.getRepository();
     }
 
+    /**
+     * Sets the number of parallel stateful sessions used by batch calls (default 1).
+     *
+     * @param sessions number of sessions
+     */
+    public void setBatchSessions(int sessions) {
+        if (sessions <= 0)
+            throw new IllegalArgumentException("Number of sessions must be positive.");
+        this.batchSessions = sessions;
+    }
+
+    /**
+     * Enables result caching for a function module of a destination. Only enable it for function modules without
+     * side effects: calls with the same import and table parameters are answered from the cache until the TTL
+     * elapses. Calls of other function modules are never cached.
+     *
+     * @param destinationName the RFC destination name
+     * @param functionName    the function module name
+     * @param maxEntries      maximum number of cached results
+     * @param maxBytes        maximum estimated bytes retained by the cached results
+     * @param ttlMillis       time-to-live of each result in milliseconds
+     */
+    public static void enableResultCache(String destinationName, String functionName, int maxEntries, long maxBytes,
+                                         long ttlMillis) {
+        RESULT_CACHES.put(ResultCache.key(destinationName, functionName),
+                new LRUResultCache<>(maxEntries, maxBytes, ttlMillis, RFCLookup::weigh));
+    }
+
+    /**
+     * Disables result caching for a function module of a destination and drops its cached results.
+     *
+     * @param destinationName the RFC destination name
+     * @param functionName    the function module name
+     */
+    public static void disableResultCache(String destinationName, String functionName) {
+        RESULT_CACHES.remove(ResultCache.key(destinationName, functionName));
+    }
+
+    /**
+     * Returns the result cache of a function module, e.g. to read its hit and miss counts.
+     *
+     * @param destinationName the RFC destination name
+     * @param functionName    the function module name
+     * @return the result cache, or null if caching is not enabled for the function module
+     */
+    public static LRUResultCache<Object> getResultCache(String destinationName, String functionName) {
+        return RESULT_CACHES.get(ResultCache.key(destinationName, functionName));
+    }
+
+    private LRUResultCache<Object> resultCache(String functionName) {
+        return RESULT_CACHES.isEmpty() ? null
+                : RESULT_CACHES.get(ResultCache.key(destination.getDestinationName(), functionName));
+    }
+
+    /**
+     * Estimates the bytes retained by a cached XML response or {@link RFCResult}.
+     */
+    private static long weigh(Object value) {
+        if (value instanceof CharSequence)
+            return 40 + 2L * ((CharSequence) value).length();
+        if (value instanceof RFCResult) {
+            RFCResult result = (RFCResult) value;
+            return weigh(result.getExports()) + weigh(result.getTables());
+        }
+        if (value instanceof Map) {
+            long weight = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+                weight += 32 + weigh(entry.getKey()) + weigh(entry.getValue());
+            return weight;
+        }
+        if (value instanceof List) {
+            long weight = 40;
+            for (Object element : (List<?>) value)
+                weight += 8 + weigh(element);
+            return weight;
+        }
+        return 24;
+    }
+
     /**
      * Executes an RFC call based on the XML request and returns the XML response.
+     * If result caching is enabled for the function module, repeated requests are answered from the cache.
      *
      * @param request XML string representing the RFC request
      * @return XML string representing the RFC response
      * @throws Exception if the RFC function is not found or execution fails
      */
     public String getResponse(String request) throws Exception {
-        try {
-            XMLUtility xmlReq = new XMLUtility(request);
-            Document doc = xmlReq.getDocument();
-            Element docReqElement = doc.getDocumentElement();
-            docReqElement.normalize();
-
-            JCoFunction function = repo.getFunction(docReqElement.getNodeName());
-            if (function == null) {
-                throw new Exception("RFC module " + docReqElement.getNodeName()
-                        + " not found in SAP function repository. Please check whether function is active and marked as remote enabled.");
-            }
-
-            try {
-                xmlToRFCRequest(function, docReqElement);
-            } catch (Exception e) {
-                throw new Exception("Error while parsing RFC request XML: " + e.getMessage());
-            }
+        Element docReqElement = parseRequest(request);
+        LRUResultCache<Object> cache = resultCache(docReqElement.getNodeName());
+        if (cache == null)
+            return responseXML(docReqElement);
+        return (String) cache.getOrLoad(ResultCache.key("XML", RFCRequestKey.forRequest(docReqElement)),
+                () -> responseXML(docReqElement));
+    }
 
-            function.execute(destination);
+    private String responseXML(Element docReqElement) throws Exception {
+        try {
+            RFCFunctionPlan plan = getFunctionPlan(docReqElement.getNodeName());
+            JCoFunction function = executeRequest(docReqElement, plan);
 
             // Prepare XML response
             JCoParameterList exportParam = function.getExportParameterList();
@@ -64,22 +178,17 @@ public class RFCLookup {
 
             // Handle export parameters
             if (exportParam != null) {
-                JCoParameterFieldIterator paramIterator = exportParam.getParameterFieldIterator();
-                while (paramIterator.hasNextField()) {
-                    JCoField field = paramIterator.nextField();
-                    xmlResp.createNode(field.getName(), field.getString(), docRespElement);
+                for (int i = 0; i < plan.getExportCount(); i++) {
+                    xmlResp.createNode(plan.exportName(i), exportParam.getString(i), docRespElement);
                 }
             }
 
             // Handle table parameters
             exportParam = function.getTableParameterList();
             if (exportParam != null) {
-                JCoParameterFieldIterator paramIterator = exportParam.getParameterFieldIterator();
-                while (paramIterator.hasNextField()) {
-                    JCoParameterField paramField = paramIterator.nextParameterField();
-                    Element tableRootEl = xmlResp.createElement(paramField.getName(), docRespElement);
-                    JCoTable table = paramField.getTable();
-                    parseTableData(table, tableRootEl, xmlResp);
+                for (int t = 0; t < plan.getTableCount(); t++) {
+                    Element tableRootEl = xmlResp.createElement(plan.tableName(t), docRespElement);
+                    parseTableData(exportParam.getTable(t), plan, t, tableRootEl, xmlResp);
                 }
             }
 
@@ -90,23 +199,493 @@ public class RFCLookup {
         }
     }
 
+    /**
+     * Streaming variant of {@link #getResponse(String)}: writes the response in the same XML structure directly
+     * from the JCo parameter lists while iterating the tables, instead of building a DOM. Memory use is
+     * proportional to one row rather than to the whole table.
+     *
+     * @param request XML string representing the RFC request
+     * @param out UTF-8 output, not closed by this method
+     * @return number of table rows written
+     * @throws Exception if the RFC function is not found or execution fails
+     */
+    public long writeResponse(String request, OutputStream out) throws Exception {
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            long rows = writeResponse(request, writer);
+            writer.writeEndDocument();
+            return rows;
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #getResponse(String)} writing characters, see
+     * {@link #writeResponse(String, OutputStream)}.
+     *
+     * @param request XML string representing the RFC request
+     * @param out output, not closed by this method
+     * @return number of table rows written
+     * @throws Exception if the RFC function is not found or execution fails
+     */
+    public long writeResponse(String request, Writer out) throws Exception {
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out);
+        try {
+            return writeResponse(request, writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #getResponse(String)} writing the response element to an
+     * {@link XMLStreamWriter}, see {@link #writeResponse(String, OutputStream)}. The writer is flushed but not
+     * closed, so the response can be embedded in a larger document.
+     *
+     * @param request XML string representing the RFC request
+     * @param writer the XML writer
+     * @return number of table rows written
+     * @throws Exception if the RFC function is not found or execution fails
+     */
+    public long writeResponse(String request, XMLStreamWriter writer) throws Exception {
+        try {
+            Element docReqElement = parseRequest(request);
+            RFCFunctionPlan plan = getFunctionPlan(docReqElement.getNodeName());
+            JCoFunction function = executeRequest(docReqElement, plan);
+
+            long rows = 0;
+            writer.writeStartElement(docReqElement.getNodeName() + ".response");
+
+            JCoParameterList exportParam = function.getExportParameterList();
+            if (exportParam != null) {
+                for (int i = 0; i < plan.getExportCount(); i++)
+                    writeElement(writer, plan.exportName(i), exportParam.getString(i));
+            }
+
+            JCoParameterList tableParam = function.getTableParameterList();
+            if (tableParam != null) {
+                for (int t = 0; t < plan.getTableCount(); t++) {
+                    JCoTable table = tableParam.getTable(t);
+                    int fieldCount = plan.tableFieldCount(t);
+                    writer.writeStartElement(plan.tableName(t));
+                    for (int r = 0; r < table.getNumRows(); r++) {
+                        table.setRow(r);
+                        writer.writeStartElement("table");
+                        for (int f = 0; f < fieldCount; f++)
+                            writeElement(writer, plan.tableFieldName(t, f), table.getString(f));
+                        writer.writeEndElement();
+                        rows++;
+                    }
+                    writer.writeEndElement();
+                }
+            }
+
+            writer.writeEndElement();
+            writer.flush();
+            return rows;
+        } catch (JCoException e) {
+            throw new Exception("JCO Connection failed: " + e.getMessage(), e.getCause());
+        } catch (XMLStreamException e) {
+            throw new Exception("Error while writing RFC response XML: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeElement(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        if (value == null || value.isEmpty()) {
+            writer.writeEmptyElement(name);
+        } else {
+            writer.writeStartElement(name);
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #getResult(String, Map)}: export parameters are returned, while the rows of all
+     * table parameters are passed to the handler one at a time as the tables are read.
+     *
+     * @param functionName the function module name
+     * @param parameters   import and table parameter values by parameter name, see {@link #getResult(String, Map)}
+     * @param rowHandler   receives the table rows
+     * @return export parameter values by parameter name
+     * @throws Exception if the RFC function is not found, execution fails or the handler fails
+     */
+    public Map<String, Object> getResult(String functionName, Map<String, ?> parameters, RFCRowHandler rowHandler)
+            throws Exception {
+        RFCFunctionPlan plan = getFunctionPlan(functionName);
+        JCoFunction function = executeParameters(plan, parameters);
+
+        Map<String, Object> exports = exportValues(function, plan);
+        JCoParameterList tableParam = function.getTableParameterList();
+        if (tableParam != null) {
+            for (int t = 0; t < plan.getTableCount(); t++) {
+                JCoTable table = tableParam.getTable(t);
+                for (int r = 0; r < table.getNumRows(); r++) {
+                    table.setRow(r);
+                    rowHandler.row(plan.tableName(t), r, recordValues(table));
+                }
+            }
+        }
+        return exports;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getResponse(String)}, run by {@link LookupExecutor} with bounded
+     * concurrency per RFC destination.
+     *
+     * @param request XML string representing the RFC request
+     * @return future completed with the XML string representing the RFC response
+     */
+    public CompletableFuture<String> getResponseAsync(String request) {
+        return LookupExecutor.submit("RFC|" + destination.getDestinationName(), () -> getResponse(request));
+    }
+
+    /**
+     * Executes several RFC calls and returns the XML responses in request order, see
+     * {@link #getResponses(List, int)}. The number of sessions is set by {@link #setBatchSessions(int)}.
+     *
+     * @param requests XML strings representing the RFC requests
+     * @return XML strings representing the RFC responses
+     * @throws Exception if any call fails
+     */
+    public List<String> getResponses(List<String> requests) throws Exception {
+        return getResponses(requests, batchSessions);
+    }
+
+    /**
+     * Executes several RFC calls and returns the XML responses in request order.
+     * <p>
+     * The calls are distributed over up to {@code sessions} workers. Each worker runs its calls inside one
+     * stateful {@link JCoContext} session, so consecutive calls reuse the same backend connection and user
+     * context instead of opening a session per call. Workers run on {@link LookupExecutor} and share the
+     * concurrency limit of the destination; called from an asynchronous task of the same destination, e.g.
+     * {@link #getResponseAsync(String)}, the calls run in a single session on the calling thread instead. The
+     * first failure stops the remaining calls.
+     *
+     * @param requests XML strings representing the RFC requests
+     * @param sessions maximum number of parallel sessions
+     * @return XML strings representing the RFC responses
+     * @throws Exception if any call fails
+     */
+    public List<String> getResponses(List<String> requests, int sessions) throws Exception {
+        return executeBatch(requests, sessions, this::getResponse);
+    }
+
+    /**
+     * Executes an RFC call with parameters given as Java values and returns the exports and tables as Java
+     * structures, without building or parsing XML.
+     * <p>
+     * Each parameter is matched by name: a table parameter takes a list of rows, each row a map of field values;
+     * an import parameter takes a single value, a map of field values for a structure, or a list of rows for a
+     * table type.
+     *
+     * @param functionName the function module name
+     * @param parameters   import and table parameter values by parameter name, or null
+     * @return the export and table parameters
+     * @throws Exception if the RFC function is not found or execution fails
+     */
+    public RFCResult getResult(String functionName, Map<String, ?> parameters) throws Exception {
+        LRUResultCache<Object> cache = resultCache(functionName);
+        if (cache == null)
+            return executeResult(functionName, parameters);
+        return (RFCResult) cache.getOrLoad(ResultCache.key("MAP", RFCRequestKey.forParameters(functionName, parameters)),
+                () -> executeResult(functionName, parameters));
+    }
+
+    private RFCResult executeResult(String functionName, Map<String, ?> parameters) throws Exception {
+        RFCFunctionPlan plan = getFunctionPlan(functionName);
+        JCoFunction function = executeParameters(plan, parameters);
+
+        Map<String, Object> exports = exportValues(function, plan);
+        Map<String, List<Map<String, Object>>> tables = new LinkedHashMap<>();
+        JCoParameterList tableParam = function.getTableParameterList();
+        if (tableParam != null) {
+            for (int t = 0; t < plan.getTableCount(); t++)
+                tables.put(plan.tableName(t), tableRows(tableParam.getTable(t)));
+        }
+        return new RFCResult(exports, tables);
+    }
+
+    /**
+     * Executes several RFC calls of the same function module with parameters given as Java values, in stateful
+     * batch sessions like {@link #getResponses(List, int)}.
+     *
+     * @param functionName the function module name
+     * @param parameters   parameter values of each call, see {@link #getResult(String, Map)}
+     * @param sessions     maximum number of parallel sessions
+     * @return one result per call, in call order
+     * @throws Exception if any call fails
+     */
+    public List<RFCResult> getResults(String functionName, List<? extends Map<String, ?>> parameters, int sessions)
+            throws Exception {
+        return executeBatch(parameters, sessions, p -> getResult(functionName, p));
+    }
+
+    /**
+     * Executes several RFC calls of the same function module with parameters given as Java values. The number of
+     * sessions is set by {@link #setBatchSessions(int)}.
+     *
+     * @param functionName the function module name
+     * @param parameters   parameter values of each call, see {@link #getResult(String, Map)}
+     * @return one result per call, in call order
+     * @throws Exception if any call fails
+     */
+    public List<RFCResult> getResults(String functionName, List<? extends Map<String, ?>> parameters)
+            throws Exception {
+        return getResults(functionName, parameters, batchSessions);
+    }
+
+    private JCoFunction executeParameters(RFCFunctionPlan plan, Map<String, ?> parameters) throws Exception {
+        JCoFunction function = plan.newFunction();
+        try {
+            mapParameters(function, plan, parameters);
+        } catch (Exception e) {
+            throw new Exception("Error while mapping RFC parameters: " + e.getMessage(), e);
+        }
+
+        try {
+            function.execute(destination);
+        } catch (JCoException e) {
+            throw new Exception("JCO Connection failed: " + e.getMessage(), e.getCause());
+        }
+        return function;
+    }
+
+    private static Map<String, Object> exportValues(JCoFunction function, RFCFunctionPlan plan) {
+        Map<String, Object> exports = new LinkedHashMap<>();
+        JCoParameterList exportParam = function.getExportParameterList();
+        if (exportParam != null) {
+            for (int i = 0; i < plan.getExportCount(); i++)
+                exports.put(plan.exportName(i), toJava(exportParam.getValue(i)));
+        }
+        return exports;
+    }
+
+    private void mapParameters(JCoFunction function, RFCFunctionPlan plan, Map<String, ?> parameters) {
+        if (parameters == null)
+            return;
+        for (Map.Entry<String, ?> parameter : parameters.entrySet()) {
+            String name = parameter.getKey();
+            Object value = parameter.getValue();
+            int tableIndex = plan.tableIndex(name);
+            if (tableIndex >= 0 && value instanceof List) {
+                JCoTable table = function.getTableParameterList().getTable(tableIndex);
+                for (Object row : (List<?>) value) {
+                    table.appendRow();
+                    ((Map<?, ?>) row).forEach((field, fieldValue) -> {
+                        int fieldIndex = plan.tableFieldIndex(tableIndex, field.toString());
+                        if (fieldIndex >= 0)
+                            table.setValue(fieldIndex, fieldValue);
+                        else
+                            table.setValue(field.toString(), fieldValue);
+                    });
+                }
+            } else {
+                JCoParameterList imports = function.getImportParameterList();
+                int importIndex = plan.importIndex(name);
+                if (value instanceof Map) {
+                    JCoStructure structure = importIndex >= 0 ? imports.getStructure(importIndex)
+                            : imports.getStructure(name);
+                    ((Map<?, ?>) value).forEach((field, fieldValue) -> structure.setValue(field.toString(), fieldValue));
+                } else if (value instanceof List) {
+                    JCoTable table = importIndex >= 0 ? imports.getTable(importIndex) : imports.getTable(name);
+                    for (Object row : (List<?>) value) {
+                        table.appendRow();
+                        ((Map<?, ?>) row).forEach((field, fieldValue) -> table.setValue(field.toString(), fieldValue));
+                    }
+                } else if (importIndex >= 0) {
+                    imports.setValue(importIndex, value);
+                } else {
+                    imports.setValue(name, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts nested JCo structures and tables to maps and lists; other values are returned as is.
+     */
+    private static Object toJava(Object value) {
+        if (value instanceof JCoTable)
+            return tableRows((JCoTable) value);
+        if (value instanceof JCoStructure)
+            return recordValues((JCoStructure) value);
+        return value;
+    }
+
+    private static List<Map<String, Object>> tableRows(JCoTable table) {
+        List<Map<String, Object>> rows = new ArrayList<>(table.getNumRows());
+        for (int i = 0; i < table.getNumRows(); i++) {
+            table.setRow(i);
+            rows.add(recordValues(table));
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> recordValues(JCoRecord record) {
+        JCoMetaData metaData = record.getMetaData();
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int f = 0; f < metaData.getFieldCount(); f++)
+            values.put(metaData.getName(f), toJava(record.getValue(f)));
+        return values;
+    }
+
+    /**
+     * Single call of a batch.
+     */
+    private interface BatchCall<I, R> {
+        R call(I input) throws Exception;
+    }
+
+    /**
+     * Runs the calls on up to {@code sessions} workers, each inside its own stateful session, and returns the
+     * results in input order.
+     */
+    private <I, R> List<R> executeBatch(List<I> inputs, int sessions, BatchCall<I, R> call) throws Exception {
+        if (sessions <= 0)
+            throw new IllegalArgumentException("Number of sessions must be positive.");
+        if (inputs.isEmpty())
+            return new ArrayList<>();
+        Object[] results = new Object[inputs.size()];
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(sessions, inputs.size());
+        String backend = "RFC|" + destination.getDestinationName();
+
+        // a task of the destination waiting for workers of the same destination could exhaust its slots
+        if (workers <= 1 || LookupExecutor.isRunningIn(backend)) {
+            runSession(inputs, results, next, call);
+        } else {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(LookupExecutor.submit(backend, () -> {
+                    runSession(inputs, results, next, call);
+                    return null;
+                }));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw (cause instanceof Exception) ? (Exception) cause : e;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return list;
+    }
+
+    /**
+     * Takes calls from the shared queue and executes them within one stateful session until the queue is
+     * exhausted or a call fails.
+     */
+    private <I, R> void runSession(List<I> inputs, Object[] results, AtomicInteger next, BatchCall<I, R> call)
+            throws Exception {
+        JCoContext.begin(destination);
+        try {
+            int i;
+            while ((i = next.getAndIncrement()) < inputs.size()) {
+                try {
+                    results[i] = call.call(inputs.get(i));
+                } catch (Exception e) {
+                    // stop the other sessions
+                    next.set(inputs.size());
+                    throw new Exception("Batch call " + (i + 1) + " of " + inputs.size() + " failed: "
+                            + e.getMessage(), e);
+                }
+            }
+        } finally {
+            JCoContext.end(destination);
+        }
+    }
+
+    /**
+     * Parses the XML request and returns its root element, named after the function module.
+     */
+    private static Element parseRequest(String request) throws Exception {
+        XMLUtility xmlReq = new XMLUtility(request);
+        Document doc = xmlReq.getDocument();
+        Element docReqElement = doc.getDocumentElement();
+        docReqElement.normalize();
+        return docReqElement;
+    }
+
+    /**
+     * Maps the XML request to a new function instance and executes it.
+     */
+    private JCoFunction executeRequest(Element docReqElement, RFCFunctionPlan plan) throws Exception {
+        JCoFunction function = plan.newFunction();
+
+        try {
+            xmlToRFCRequest(function, plan, docReqElement);
+        } catch (Exception e) {
+            throw new Exception("Error while parsing RFC request XML: " + e.getMessage());
+        }
+
+        function.execute(destination);
+        return function;
+    }
+
+    /**
+     * Returns the compiled plan of a function module, looking up its template in the repository on first use.
+     *
+     * @param functionName the function module name
+     * @return the function plan
+     * @throws Exception if the function module is not found
+     */
+    private RFCFunctionPlan getFunctionPlan(String functionName) throws Exception {
+        String key = ResultCache.key(destination.getDestinationName(), functionName);
+        RFCFunctionPlan plan = PLANS.get(key);
+        if (plan == null) {
+            JCoFunctionTemplate template = repo.getFunctionTemplate(functionName);
+            if (template == null) {
+                throw new Exception("RFC module " + functionName
+                        + " not found in SAP function repository. Please check whether function is active and marked as remote enabled.");
+            }
+            plan = new RFCFunctionPlan(template);
+            RFCFunctionPlan existing = PLANS.putIfAbsent(key, plan);
+            if (existing != null)
+                plan = existing;
+        }
+        return plan;
+    }
+
+    /**
+     * Clears the cached function templates and plans of all destinations, e.g. after a function module
+     * interface was changed in the backend.
+     */
+    public static void clearFunctionCache() {
+        PLANS.clear();
+    }
+
     /**
      * Converts XML request into RFC import and table parameters.
      *
      * @param function the JCoFunction to populate
+     * @param plan the compiled plan of the function
      * @param docEl the root XML element of the request
      * @throws Exception if parsing fails
      */
-    private void xmlToRFCRequest(JCoFunction function, Element docEl) throws Exception {
+    private void xmlToRFCRequest(JCoFunction function, RFCFunctionPlan plan, Element docEl) throws Exception {
         NodeList nl = docEl.getChildNodes();
         for (int count = 0; count < nl.getLength(); count++) {
             Node tempNode = nl.item(count);
             if (tempNode.getNodeType() == Node.ELEMENT_NODE) {
+                String name = tempNode.getNodeName();
                 if (tempNode.hasChildNodes() && tempNode.getChildNodes().getLength() > 1) {
-                    JCoTable table = function.getTableParameterList().getTable(tempNode.getNodeName());
-                    formTableRequest(tempNode, table);
+                    int tableIndex = plan.tableIndex(name);
+                    JCoParameterList tables = function.getTableParameterList();
+                    JCoTable table = tableIndex >= 0 ? tables.getTable(tableIndex) : tables.getTable(name);
+                    formTableRequest(tempNode, table, plan, tableIndex);
                 } else {
-                    function.getImportParameterList().setValue(tempNode.getNodeName(), tempNode.getTextContent());
+                    // unknown names are left to JCo to report
+                    int importIndex = plan.importIndex(name);
+                    if (importIndex >= 0)
+                        function.getImportParameterList().setValue(importIndex, tempNode.getTextContent());
+                    else
+                        function.getImportParameterList().setValue(name, tempNode.getTextContent());
                 }
             }
         }
@@ -117,8 +696,10 @@ public class RFCLookup {
      *
      * @param node the XML node representing the table
      * @param table the JCoTable to populate
+     * @param plan the compiled plan of the function
+     * @param tableIndex the index of the table parameter, or -1 if unknown
      */
-    private void formTableRequest(Node node, JCoTable table) {
+    private void formTableRequest(Node node, JCoTable table, RFCFunctionPlan plan, int tableIndex) {
         NodeList nl = node.getChildNodes();
         for (int i = 0; i < nl.getLength(); i++) {
             Node tempNode = nl.item(i);
@@ -128,7 +709,11 @@ public class RFCLookup {
                 for (int j = 0; j < tblNl.getLength(); j++) {
                     Node tempField = tblNl.item(j);
                     if (tempField.getNodeType() == Node.ELEMENT_NODE) {
-                        table.setValue(tempField.getNodeName(), tempField.getTextContent());
+                        int fieldIndex = tableIndex >= 0 ? plan.tableFieldIndex(tableIndex, tempField.getNodeName()) : -1;
+                        if (fieldIndex >= 0)
+                            table.setValue(fieldIndex, tempField.getTextContent());
+                        else
+                            table.setValue(tempField.getNodeName(), tempField.getTextContent());
                     }
                 }
             }
@@ -139,17 +724,18 @@ public class RFCLookup {
      * Converts JCoTable data into XML elements.
      *
      * @param table the JCoTable to read
+     * @param plan the compiled plan of the function
+     * @param tableIndex the index of the table parameter
      * @param el the parent XML element to append to
      * @param xml the XMLUtility instance used for XML manipulation
      */
-    private void parseTableData(JCoTable table, Element el, XMLUtility xml) {
+    private void parseTableData(JCoTable table, RFCFunctionPlan plan, int tableIndex, Element el, XMLUtility xml) {
+        int fieldCount = plan.tableFieldCount(tableIndex);
         for (int i = 0; i < table.getNumRows(); i++) {
             table.setRow(i);
             Element tableEl = xml.createElement("table", el);
-            JCoFieldIterator fieldItr = table.getFieldIterator();
-            while (fieldItr.hasNextField()) {
-                JCoField rowField = fieldItr.nextField();
-                xml.createNode(rowField.getName(), rowField.getString(), tableEl);
+            for (int f = 0; f < fieldCount; f++) {
+                xml.createNode(plan.tableFieldName(tableIndex, f), table.getString(f), tableEl);
             }
         }
     }
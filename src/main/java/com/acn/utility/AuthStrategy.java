@@ -0,0 +1,27 @@
+package com.acn.utility;
+
+import java.util.Map;
+
+/**
+ * AuthStrategy adds the authentication headers of a request, e.g. Basic credentials or an OAuth2 bearer token.
+ * <p>
+ * Implementations must be thread-safe, as one strategy may be shared by lookups running in parallel.
+ */
+public interface AuthStrategy {
+
+    /**
+     * Adds the authentication headers to the request headers.
+     *
+     * @param headers the request headers
+     * @throws Exception if the credentials cannot be obtained, e.g. a token request fails
+     */
+    void apply(Map<String, String> headers) throws Exception;
+
+    /**
+     * Returns a stable identity of the credentials, used to keep cached results of different principals apart.
+     * The identity must not contain secrets in clear text.
+     *
+     * @return credentials identity
+     */
+    String identity();
+}
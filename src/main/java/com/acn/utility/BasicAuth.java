@@ -0,0 +1,36 @@
+package com.acn.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * BasicAuth authenticates requests with HTTP Basic credentials. The header value is computed once.
+ */
+public class BasicAuth implements AuthStrategy {
+
+    private final String authorization;
+    private final String identity;
+
+    /**
+     * Constructs a BasicAuth strategy.
+     *
+     * @param user     the username
+     * @param password the password
+     */
+    public BasicAuth(String user, String password) {
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.identity = ResultCache.credentialsIdentity(user, password);
+    }
+
+    @Override
+    public void apply(Map<String, String> headers) {
+        headers.put("Authorization", authorization);
+    }
+
+    @Override
+    public String identity() {
+        return identity;
+    }
+}
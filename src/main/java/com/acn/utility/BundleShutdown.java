@@ -0,0 +1,70 @@
+package com.acn.utility;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * BundleShutdown runs cleanup tasks when the bundle containing this library is stopped, e.g. on an iFlow
+ * redeployment, so background threads and static caches do not outlive the bundle and pin its class loader.
+ * <p>
+ * Outside OSGi nothing is registered and the tasks have to be run explicitly, e.g. by calling
+ * {@link JDBCConnectionPool#shutdown()}.
+ */
+public class BundleShutdown {
+
+    private static final Logger LOGGER = Logger.getLogger(BundleShutdown.class.getName());
+
+    private static final List<Runnable> TASKS = new CopyOnWriteArrayList<>();
+
+    static {
+        try {
+            OsgiHook.register();
+        } catch (NoClassDefFoundError | RuntimeException e) {
+            // not running in OSGi
+        }
+    }
+
+    /**
+     * Registers a task to run when the bundle is stopped. Tasks run in registration order; a failing task does not
+     * keep the others from running.
+     *
+     * @param task the cleanup task
+     */
+    public static void onStop(Runnable task) {
+        TASKS.add(task);
+    }
+
+    /**
+     * Keeps the OSGi types out of this class, so it also loads where the OSGi framework is not on the class path.
+     */
+    private static final class OsgiHook {
+        static void register() {
+            Bundle bundle = FrameworkUtil.getBundle(BundleShutdown.class);
+            BundleContext context = bundle != null ? bundle.getBundleContext() : null;
+            if (context != null) {
+                context.addBundleListener((SynchronousBundleListener) event -> {
+                    if (event.getBundle() == bundle && event.getType() == BundleEvent.STOPPING)
+                        runTasks();
+                });
+            }
+        }
+    }
+
+    private static void runTasks() {
+        for (Runnable task : TASKS) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Cleanup on bundle stop failed", e);
+            }
+        }
+    }
+}
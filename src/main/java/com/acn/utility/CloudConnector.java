@@ -2,6 +2,8 @@ package com.acn.utility;
 
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import com.sap.it.api.ITApiFactory;
@@ -12,15 +14,57 @@ import com.sap.it.api.ccs.adapter.ConnectionType;
 /**
  * CloudConnector is a utility class for retrieving proxy configuration and headers
  * required to connect to on-premise systems via SAP Cloud Connector.
+ * <p>
+ * Lookups obtain instances through {@link #of(String, String)}, which delegates to the process-wide
+ * {@link CloudConnectorProvider}. The default {@link TenantCloudConnectorProvider} shares one instance per
+ * location ID and connection type and keeps its proxy headers up to date.
  */
 public class CloudConnector {
 
+    private static final String LOCATION_ID_HEADER = "SAP-Connectivity-SCC-Location_ID";
+
+    private static volatile CloudConnectorProvider provider = new TenantCloudConnectorProvider();
+
     private String onpremise_proxy_host;
     private int onpremise_proxy_http_port;
     private int onpremise_proxy_tcp_port;
-    private Map<String, String> proxyHeaders;
+    private volatile Map<String, String> proxyHeaders;
+    private volatile Runnable refreshCheck;
     private Proxy proxy;
 
+    /**
+     * Returns the Cloud Connector configuration for the location ID and connection type from the process-wide
+     * provider.
+     *
+     * @param locationId optional location ID for SAP Cloud Connector
+     * @param type       the connection type ("HTTP" or "TCP")
+     * @return the Cloud Connector configuration
+     * @throws Exception if the configuration cannot be retrieved
+     */
+    public static CloudConnector of(String locationId, String type) throws Exception {
+        return provider.get(locationId, type);
+    }
+
+    /**
+     * Sets the process-wide provider, e.g. a {@link LocalCloudConnectorProvider} when running off-tenant.
+     *
+     * @param cloudConnectorProvider the provider
+     */
+    public static void setProvider(CloudConnectorProvider cloudConnectorProvider) {
+        if (cloudConnectorProvider == null)
+            throw new IllegalArgumentException("Provider must not be null.");
+        provider = cloudConnectorProvider;
+    }
+
+    /**
+     * Returns the process-wide provider.
+     *
+     * @return the provider
+     */
+    public static CloudConnectorProvider getProvider() {
+        return provider;
+    }
+
     /**
      * Constructs a CloudConnector using the specified connection type.
      *
@@ -39,26 +83,69 @@ public class CloudConnector {
      * @throws Exception if initialization fails
      */
     public CloudConnector(String locationId, String type) throws Exception {
-        CloudConnectorContext context = new CloudConnectorContext();
-        context.setConnectionType(ConnectionType.valueOf(type.toUpperCase()));
-
-        CloudConnectorProperties props = ITApiFactory.getService(CloudConnectorProperties.class, context);
+        this(locationId, type, properties(type));
+    }
 
-        onpremise_proxy_host = props.getProxyHost();
-        proxyHeaders = props.getAdditionalHeaders();
+    private CloudConnector(String locationId, String type, CloudConnectorProperties props) {
+        this(props.getProxyHost(), props.getProxyPort(), type, proxyHeaders(props, locationId));
+    }
 
-        if (locationId != null && !locationId.isEmpty()) {
-            proxyHeaders.put("SAP-Connectivity-SCC-Location_ID", locationId);
-        }
+    /**
+     * Constructs a CloudConnector from known proxy settings, without querying the tenant.
+     *
+     * @param proxyHost    the proxy host
+     * @param proxyPort    the proxy port for the connection type
+     * @param type         the connection type ("HTTP" or "TCP")
+     * @param proxyHeaders additional headers required for the proxy connection, copied
+     */
+    public CloudConnector(String proxyHost, int proxyPort, String type, Map<String, String> proxyHeaders) {
+        onpremise_proxy_host = proxyHost;
+        setProxyHeaders(proxyHeaders);
 
         if (type.equalsIgnoreCase("HTTP")) {
-            onpremise_proxy_http_port = props.getProxyPort();
+            onpremise_proxy_http_port = proxyPort;
             proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(onpremise_proxy_host, onpremise_proxy_http_port));
         }
 
         if (type.equalsIgnoreCase("TCP")) {
-            onpremise_proxy_tcp_port = props.getProxyPort();
+            onpremise_proxy_tcp_port = proxyPort;
+        }
+    }
+
+    /**
+     * Retrieves the Cloud Connector properties of the tenant for the connection type.
+     */
+    static CloudConnectorProperties properties(String type) throws Exception {
+        CloudConnectorContext context = new CloudConnectorContext();
+        context.setConnectionType(ConnectionType.valueOf(type.toUpperCase()));
+        return ITApiFactory.getService(CloudConnectorProperties.class, context);
+    }
+
+    /**
+     * Returns a copy of the additional headers of the properties, including the location ID header if given.
+     */
+    static Map<String, String> proxyHeaders(CloudConnectorProperties props, String locationId) {
+        Map<String, String> headers = new HashMap<>();
+        if (props.getAdditionalHeaders() != null)
+            headers.putAll(props.getAdditionalHeaders());
+        if (locationId != null && !locationId.isEmpty()) {
+            headers.put(LOCATION_ID_HEADER, locationId);
         }
+        return headers;
+    }
+
+    /**
+     * Replaces the proxy headers, e.g. after the proxy authorization token has been refreshed.
+     */
+    void setProxyHeaders(Map<String, String> headers) {
+        proxyHeaders = Collections.unmodifiableMap(new HashMap<>(headers != null ? headers : Map.of()));
+    }
+
+    /**
+     * Sets the check run before the proxy headers are read, which refreshes them when they are about to expire.
+     */
+    void setRefreshCheck(Runnable check) {
+        refreshCheck = check;
     }
 
     /**
@@ -98,11 +185,17 @@ public class CloudConnector {
     }
 
     /**
-     * Returns the additional headers required for the proxy connection.
+     * Returns the additional headers required for the proxy connection. The returned map is a copy the caller
+     * may change; call this method again for each request to pick up refreshed headers. Headers managed by the
+     * {@link TenantCloudConnectorProvider} are refreshed first if their token is about to expire.
      *
      * @return map of header names and values
+     * @throws IllegalStateException if the proxy token has expired and cannot be refreshed
      */
     public Map<String, String> getProxyHeaders() {
-        return proxyHeaders;
+        Runnable check = refreshCheck;
+        if (check != null)
+            check.run();
+        return new HashMap<>(proxyHeaders);
     }
 }
\ No newline at end of file
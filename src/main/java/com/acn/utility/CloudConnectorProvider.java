@@ -0,0 +1,22 @@
+package com.acn.utility;
+
+/**
+ * CloudConnectorProvider supplies the SAP Cloud Connector proxy configuration used by the lookups.
+ * <p>
+ * Implementations may return shared instances; callers must read {@link CloudConnector#getProxyHeaders()} for
+ * each request instead of keeping a copy, so refreshed proxy headers are picked up.
+ *
+ * @see CloudConnector#setProvider(CloudConnectorProvider)
+ */
+public interface CloudConnectorProvider {
+
+    /**
+     * Returns the Cloud Connector configuration for the location ID and connection type.
+     *
+     * @param locationId optional location ID for SAP Cloud Connector
+     * @param type       the connection type ("HTTP" or "TCP")
+     * @return the Cloud Connector configuration
+     * @throws Exception if the configuration cannot be retrieved
+     */
+    CloudConnector get(String locationId, String type) throws Exception;
+}
@@ -1,9 +1,21 @@
 package com.acn.utility;
 
+import java.io.InputStream;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -17,9 +29,23 @@ import org.w3c.dom.NodeList;
  *   <li>Map of field names to lists of values</li>
  *   <li>List of maps representing rows of field-value pairs</li>
  * </ul>
+ * <p>
+ * Both formats are also available in a streaming mode ({@code streamResponseToOutput*}) which reads
+ * the XML in a single StAX pass and keeps only the requested fields, instead of building a DOM.
+ * The streaming mode understands simple row paths such as {@code //select_response}, {@code //results}
+ * or {@code /a/b/c}; other XPath expressions fall back to the DOM based implementation.
  */
 public class FormatXML {
 
+    private static final Pattern STEP = Pattern.compile("\\*|[A-Za-z_][\\w.\\-]*(:[A-Za-z_][\\w.\\-]*)?");
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
     /**
      * Extracts specified fields from an XML string and returns them as a map
      * where each key maps to a list of values.
@@ -83,26 +109,29 @@ public class FormatXML {
     public static List<Map<String, String>> formatResponseToOutputRows(String xmlString, String nodesetXPath,
                                                                        List<String> outputList) throws Exception {
         try {
-            XMLUtility xmlUtil = new XMLUtility(xmlString);
+            return formatDocumentToOutputRows(new XMLUtility(xmlString), nodesetXPath, outputList);
+        } catch (Exception e) {
+            throw new Exception("Error formatting XML to output rows: " + e.getMessage(), e);
+        }
+    }
 
-            if (!xmlUtil.getDocument().getDocumentElement().hasChildNodes())
-                return null;
+    private static List<Map<String, String>> formatDocumentToOutputRows(XMLUtility xmlUtil, String nodesetXPath,
+                                                                        List<String> outputList) throws Exception {
+        if (!xmlUtil.getDocument().getDocumentElement().hasChildNodes())
+            return null;
 
-            List<Map<String, String>> result = new ArrayList<>();
-            NodeList nlResult = (NodeList) xmlUtil.executeXpath(nodesetXPath, "NODESET");
+        List<Map<String, String>> result = new ArrayList<>();
+        NodeList nlResult = (NodeList) xmlUtil.executeXpath(nodesetXPath, "NODESET");
 
-            if (nlResult.getLength() == 0) {
-                filterFields(xmlUtil.getDocument().getDocumentElement(), result, outputList);
-            } else {
-                for (int i = 0; i < nlResult.getLength(); i++) {
-                    filterFields((Element) nlResult.item(i), result, outputList);
-                }
+        if (nlResult.getLength() == 0) {
+            filterFields(xmlUtil.getDocument().getDocumentElement(), result, outputList);
+        } else {
+            for (int i = 0; i < nlResult.getLength(); i++) {
+                filterFields((Element) nlResult.item(i), result, outputList);
             }
-
-            return result;
-        } catch (Exception e) {
-            throw new Exception("Error formatting XML to output rows: " + e.getMessage(), e);
         }
+
+        return result;
     }
 
     /**
@@ -121,4 +150,260 @@ public class FormatXML {
         });
         result.add(dataMap);
     }
+
+    /**
+     * Streaming variant of {@link #formatResponseToOutput(String, String, List)}.
+     *
+     * @param xmlString    the XML content as a string
+     * @param nodesetXPath path of the row elements, e.g. {@code //results}
+     * @param outputList   list of field names to extract
+     * @return a map of field names to lists of values, or null if no child nodes exist
+     * @throws Exception if parsing fails
+     */
+    public static Map<String, List<String>> streamResponseToOutput(String xmlString, String nodesetXPath,
+                                                                   List<String> outputList) throws Exception {
+        if (RowPath.parse(nodesetXPath) == null)
+            return formatResponseToOutput(xmlString, nodesetXPath, outputList);
+        return toColumns(streamResponseToOutputRows(xmlString, nodesetXPath, outputList), outputList);
+    }
+
+    /**
+     * Streaming variant of {@link #formatResponseToOutput(String, String, List)} reading from an InputStream.
+     *
+     * @param xml          the XML content as an InputStream
+     * @param nodesetXPath path of the row elements, e.g. {@code //results}
+     * @param outputList   list of field names to extract
+     * @return a map of field names to lists of values, or null if no child nodes exist
+     * @throws Exception if parsing fails
+     */
+    public static Map<String, List<String>> streamResponseToOutput(InputStream xml, String nodesetXPath,
+                                                                   List<String> outputList) throws Exception {
+        return toColumns(streamResponseToOutputRows(xml, nodesetXPath, outputList), outputList);
+    }
+
+    /**
+     * Streaming variant of {@link #formatResponseToOutputRows(String, String, List)}.
+     *
+     * @param xmlString    the XML content as a string
+     * @param nodesetXPath path of the row elements, e.g. {@code //results}
+     * @param outputList   list of field names to extract
+     * @return a list of maps representing rows of extracted data, or null if no child nodes exist
+     * @throws Exception if parsing fails
+     */
+    public static List<Map<String, String>> streamResponseToOutputRows(String xmlString, String nodesetXPath,
+                                                                       List<String> outputList) throws Exception {
+        RowPath rowPath = RowPath.parse(nodesetXPath);
+        if (rowPath == null)
+            return formatResponseToOutputRows(xmlString, nodesetXPath, outputList);
+        try {
+            return streamRows(INPUT_FACTORY.createXMLStreamReader(new StringReader(xmlString)), rowPath, outputList);
+        } catch (Exception e) {
+            throw new Exception("Error formatting XML to output rows: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #formatResponseToOutputRows(String, String, List)} reading from an InputStream.
+     * If the path is not supported by the streaming mode, the stream is parsed into a DOM instead.
+     *
+     * @param xml          the XML content as an InputStream
+     * @param nodesetXPath path of the row elements, e.g. {@code //results}
+     * @param outputList   list of field names to extract
+     * @return a list of maps representing rows of extracted data, or null if no child nodes exist
+     * @throws Exception if parsing fails
+     */
+    public static List<Map<String, String>> streamResponseToOutputRows(InputStream xml, String nodesetXPath,
+                                                                       List<String> outputList) throws Exception {
+        RowPath rowPath = RowPath.parse(nodesetXPath);
+        try {
+            if (rowPath == null)
+                return formatDocumentToOutputRows(new XMLUtility(xml), nodesetXPath, outputList);
+            return streamRows(INPUT_FACTORY.createXMLStreamReader(xml), rowPath, outputList);
+        } catch (Exception e) {
+            throw new Exception("Error formatting XML to output rows: " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, List<String>> toColumns(List<Map<String, String>> rows, List<String> outputList) {
+        if (rows == null)
+            return null;
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        rows.forEach(row -> outputList.forEach(field ->
+                result.computeIfAbsent(field, k -> new ArrayList<>()).add(row.get(field))));
+        return result;
+    }
+
+    /**
+     * Single pass over the XML: every element matching the row path opens a row collector, and every
+     * open collector captures the text of the first descendant element for each requested field.
+     * Rows keep document order even when row elements are nested.
+     */
+    private static List<Map<String, String>> streamRows(XMLStreamReader reader, RowPath rowPath,
+                                                        List<String> outputList) throws XMLStreamException {
+        Set<String> fields = new LinkedHashSet<>(outputList);
+        List<String> path = new ArrayList<>();
+        List<RowCollector> active = new ArrayList<>();
+        List<Map<String, String>> rows = new ArrayList<>();
+        RowCollector rootRow = null;
+        boolean rootHasChildren = false;
+
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (path.size() == 1)
+                            rootHasChildren = true;
+                        String prefix = reader.getPrefix();
+                        String name = (prefix == null || prefix.isEmpty())
+                                ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+                        path.add(name);
+                        int depth = path.size();
+                        if (fields.contains(name)) {
+                            for (RowCollector row : active)
+                                row.startField(name, depth);
+                        }
+                        if (depth == 1) {
+                            rootRow = new RowCollector(depth, -1);
+                            active.add(rootRow);
+                        }
+                        if (rowPath.matches(path)) {
+                            rows.add(null);
+                            active.add(new RowCollector(depth, rows.size() - 1));
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (path.size() == 1)
+                            rootHasChildren = true;
+                        for (RowCollector row : active)
+                            row.text(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        if (path.size() == 1)
+                            rootHasChildren = true;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        int endDepth = path.size();
+                        Iterator<RowCollector> it = active.iterator();
+                        while (it.hasNext()) {
+                            RowCollector row = it.next();
+                            if (row.depth == endDepth) {
+                                it.remove();
+                                if (row.slot >= 0)
+                                    rows.set(row.slot, row.toRow(outputList));
+                            } else {
+                                row.endField(endDepth);
+                            }
+                        }
+                        path.remove(endDepth - 1);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (!rootHasChildren)
+            return null;
+        if (rows.isEmpty() && rootRow != null)
+            rows.add(rootRow.toRow(outputList));
+        return rows;
+    }
+
+    /**
+     * Collects field values for one row element while it is open.
+     */
+    private static final class RowCollector {
+        final int depth;
+        final int slot;
+        final Map<String, StringBuilder> values = new HashMap<>();
+        final Map<String, Integer> capturing = new HashMap<>();
+
+        RowCollector(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
+
+        void startField(String name, int fieldDepth) {
+            if (!values.containsKey(name)) {
+                values.put(name, new StringBuilder());
+                capturing.put(name, fieldDepth);
+            }
+        }
+
+        void text(char[] chars, int start, int length) {
+            for (String name : capturing.keySet())
+                values.get(name).append(chars, start, length);
+        }
+
+        void endField(int fieldDepth) {
+            if (!capturing.isEmpty())
+                capturing.values().removeIf(d -> d == fieldDepth);
+        }
+
+        Map<String, String> toRow(List<String> outputList) {
+            Map<String, String> row = new LinkedHashMap<>();
+            outputList.forEach(field -> {
+                StringBuilder value = values.get(field);
+                row.put(field, value != null ? value.toString() : "");
+            });
+            return row;
+        }
+    }
+
+    /**
+     * Simple location path supported by the streaming mode: {@code //a/b}, {@code /a/b} or {@code a/b}
+     * (relative to the document element), where each step is an element name or {@code *}.
+     */
+    private static final class RowPath {
+        final String[] steps;
+        final boolean descendant;
+        final boolean absolute;
+
+        private RowPath(String[] steps, boolean descendant, boolean absolute) {
+            this.steps = steps;
+            this.descendant = descendant;
+            this.absolute = absolute;
+        }
+
+        static RowPath parse(String xpath) {
+            if (xpath == null)
+                return null;
+            String p = xpath.trim();
+            boolean descendant = p.startsWith("//");
+            boolean absolute = !descendant && p.startsWith("/");
+            p = descendant ? p.substring(2) : absolute ? p.substring(1) : p;
+            if (p.isEmpty())
+                return null;
+            String[] steps = p.split("/", -1);
+            for (String step : steps) {
+                if (!STEP.matcher(step).matches())
+                    return null;
+            }
+            return new RowPath(steps, descendant, absolute);
+        }
+
+        boolean matches(List<String> path) {
+            int offset;
+            if (descendant) {
+                offset = path.size() - steps.length;
+                if (offset < 0)
+                    return false;
+            } else {
+                offset = absolute ? 0 : 1;
+                if (path.size() != steps.length + offset)
+                    return false;
+            }
+            for (int i = 0; i < steps.length; i++) {
+                if (!steps[i].equals("*") && !steps[i].equals(path.get(offset + i)))
+                    return false;
+            }
+            return true;
+        }
+    }
 }
@@ -1,22 +1,179 @@
 package com.acn.utility;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
 import java.net.Proxy;
-import java.net.URL;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * HTTPClient is a utility class for making HTTP requests to external services.
  * It supports GET, POST, PUT, DELETE methods and allows proxy configuration.
+ * <p>
+ * Requests are sent through a shared {@link HttpClient} per proxy configuration, so connections are kept
+ * alive and reused across calls. HTTP/2 is negotiated when the server offers it on direct {@code https}
+ * connections; plain {@code http} requests and requests through a proxy (e.g. SAP Cloud Connector) use HTTP/1.1,
+ * so no h2c upgrade is attempted.
+ * <p>
+ * Concurrent identical GET and HEAD requests (same URL, headers and proxy) are coalesced into a single call
+ * whose response is shared, see {@link #setRequestCoalescing(boolean)}.
+ * <p>
+ * Responses are requested with {@code Accept-Encoding: gzip, deflate} and decompressed while they are read, see
+ * {@link #setResponseCompression(boolean)}. Request bodies are gzip-compressed when the caller sets the
+ * {@code Content-Encoding: gzip} header.
+ * <p>
+ * GET responses can be cached following HTTP caching semantics, see {@link #setResponseCache(HTTPResponseCache)}.
  */
 public class HTTPClient {
 
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "upgrade");
+
+    /**
+     * Headers left out of request keys: hop-by-hop headers, conditional headers added by the cache itself and
+     * credentials that rotate while identifying the same principal, which is keyed by its identity instead.
+     */
+    private static final Set<String> UNKEYED_HEADERS = Set.of("connection", "keep-alive", "proxy-connection", "te",
+            "trailer", "transfer-encoding", "upgrade", "proxy-authorization", "if-none-match", "if-modified-since");
+
+    private static final Map<String, HttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    private static volatile Duration connectTimeout = Duration.ofSeconds(5);
+    private static volatile Duration requestTimeout = Duration.ofSeconds(5);
+    private static volatile Executor executor;
+
+    private static final SingleFlight<byte[]> IN_FLIGHT = new SingleFlight<>();
+    private static volatile boolean requestCoalescing = true;
+
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static volatile boolean responseCompression = true;
+
+    private static volatile HTTPResponseCache responseCache;
+
+    /**
+     * Sets the connect timeout used by clients created from now on (default 5 seconds).
+     *
+     * @param timeout the connect timeout
+     */
+    public static void setConnectTimeout(Duration timeout) {
+        connectTimeout = timeout;
+        CLIENTS.clear();
+    }
+
+    /**
+     * Sets the timeout for receiving the response of each request (default 5 seconds, the read timeout of
+     * earlier versions). Raise it, e.g. to 60 seconds, for services with slow responses.
+     *
+     * @param timeout the request timeout
+     */
+    public static void setRequestTimeout(Duration timeout) {
+        requestTimeout = timeout;
+    }
+
+    /**
+     * Sets the executor used by clients created from now on for asynchronous tasks, or null for the default.
+     *
+     * @param clientExecutor the executor
+     */
+    public static void setExecutor(Executor clientExecutor) {
+        executor = clientExecutor;
+        CLIENTS.clear();
+    }
+
+    /**
+     * Enables or disables coalescing of concurrent identical GET and HEAD requests (enabled by default).
+     *
+     * @param enabled whether identical in-flight requests share one call
+     */
+    public static void setRequestCoalescing(boolean enabled) {
+        requestCoalescing = enabled;
+    }
+
+    /**
+     * Enables or disables requesting compressed responses (enabled by default). Compressed responses are
+     * always decompressed, also when the caller sets the {@code Accept-Encoding} header itself.
+     *
+     * @param enabled whether {@code Accept-Encoding: gzip, deflate} is sent with each request
+     */
+    public static void setResponseCompression(boolean enabled) {
+        responseCompression = enabled;
+    }
+
+    /**
+     * Sets the cache for GET responses, or null to disable response caching (the default). Cached responses are
+     * served while fresh and revalidated with conditional requests once stale.
+     *
+     * @param cache the response cache
+     */
+    public static void setResponseCache(HTTPResponseCache cache) {
+        responseCache = cache;
+    }
+
+    /**
+     * Returns the cache for GET responses.
+     *
+     * @return the response cache, or null if response caching is disabled
+     */
+    public static HTTPResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Returns the single-flight layer coalescing identical requests, e.g. to read its counters.
+     *
+     * @return single-flight layer
+     */
+    public static SingleFlight<byte[]> getInFlightRequests() {
+        return IN_FLIGHT;
+    }
+
+    /**
+     * Returns the shared client for the proxy configuration, creating it on first use.
+     *
+     * @param proxy optional HTTP proxy
+     * @return shared HTTP client
+     */
+    static HttpClient client(Proxy proxy) {
+        if (proxy != null && proxy.type() != Proxy.Type.HTTP && proxy.type() != Proxy.Type.DIRECT)
+            throw new IllegalArgumentException("Unsupported proxy type " + proxy.type());
+        boolean direct = proxy == null || proxy.type() == Proxy.Type.DIRECT;
+        String key = direct ? "DIRECT" : proxy.address().toString();
+
+        return CLIENTS.computeIfAbsent(key, k -> {
+            HttpClient.Builder builder = HttpClient.newBuilder()
+                    .connectTimeout(connectTimeout)
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .version(direct ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1);
+            if (!direct)
+                builder.proxy(ProxySelector.of((InetSocketAddress) proxy.address()));
+            if (executor != null)
+                builder.executor(executor);
+            return builder.build();
+        });
+    }
+
     /**
      * Makes an HTTP call and returns the response as a UTF-8 encoded string.
      *
@@ -30,7 +187,26 @@ public class HTTPClient {
      */
     public static String externalCall(String targetUrl, Map<String, String> headers, String method,
                                       String requestcontent, Proxy proxy) throws Exception {
-        byte[] responseBytes = externalCallByteArray(targetUrl, headers, method, requestcontent, proxy);
+        return externalCall(targetUrl, headers, method, requestcontent, proxy, null);
+    }
+
+    /**
+     * Makes an HTTP call on behalf of a principal and returns the response as a UTF-8 encoded string, see
+     * {@link #externalCallByteArray(String, Map, String, String, Proxy, String)}.
+     *
+     * @param targetUrl      the URL to call
+     * @param headers        request headers to include
+     * @param method         HTTP method (e.g., GET, POST)
+     * @param requestcontent optional request body (for POST/PUT)
+     * @param proxy          optional proxy configuration
+     * @param identity       stable identity of the credentials in the headers (see {@link AuthStrategy#identity()}),
+     *                       or null
+     * @return response content as a string
+     * @throws Exception if the request fails
+     */
+    public static String externalCall(String targetUrl, Map<String, String> headers, String method,
+                                      String requestcontent, Proxy proxy, String identity) throws Exception {
+        byte[] responseBytes = externalCallByteArray(targetUrl, headers, method, requestcontent, proxy, identity);
         return new String(responseBytes, StandardCharsets.UTF_8);
     }
 
@@ -43,63 +219,309 @@ public class HTTPClient {
      * @param requestcontent optional request body (for POST/PUT)
      * @param proxy          optional proxy configuration
      * @return response content as a byte array
-     * @throws Exception if the request fails or returns an error status
+     * @throws Exception if the request fails, {@link HTTPStatusException} if it returns an error status
      */
     public static byte[] externalCallByteArray(String targetUrl, Map<String, String> headers, String method,
                                                String requestcontent, Proxy proxy) throws Exception {
-        try {
-            URL url = new URL(targetUrl);
-            HttpURLConnection con = (HttpURLConnection) (proxy != null ? url.openConnection(proxy) : url.openConnection());
-
-            con.setRequestMethod(method);
-            headers.forEach(con::setRequestProperty);
-
-            // Write request body if applicable
-            if (requestcontent != null && !requestcontent.isEmpty()
-                    && !(method.equalsIgnoreCase("GET") || method.equalsIgnoreCase("DELETE"))) {
-                con.setDoOutput(true);
-                try (OutputStream os = con.getOutputStream()) {
-                    os.write(requestcontent.getBytes(StandardCharsets.UTF_8));
-                    os.flush();
-                }
-            }
+        return externalCallByteArray(targetUrl, headers, method, requestcontent, proxy, null);
+    }
 
-            // Set timeouts
-            con.setConnectTimeout(5000);
-            con.setReadTimeout(5000);
+    /**
+     * Makes an HTTP call on behalf of a principal and returns the response as a byte array.
+     * <p>
+     * Coalesced and cached responses are keyed by the identity instead of the {@code Authorization} header, so
+     * a refreshed bearer token keeps hitting the responses fetched with its predecessor. Without an identity the
+     * {@code Authorization} header itself is part of the key.
+     *
+     * @param targetUrl      the URL to call
+     * @param headers        request headers to include
+     * @param method         HTTP method (e.g., GET, POST)
+     * @param requestcontent optional request body (for POST/PUT)
+     * @param proxy          optional proxy configuration
+     * @param identity       stable identity of the credentials in the headers (see {@link AuthStrategy#identity()}),
+     *                       or null
+     * @return response content as a byte array
+     * @throws Exception if the request fails, {@link HTTPStatusException} if it returns an error status
+     */
+    public static byte[] externalCallByteArray(String targetUrl, Map<String, String> headers, String method,
+                                               String requestcontent, Proxy proxy, String identity) throws Exception {
+        HTTPResponseCache cache = method.equalsIgnoreCase("GET") ? responseCache : null;
+        boolean coalesce = requestCoalescing && (method.equalsIgnoreCase("GET") || method.equalsIgnoreCase("HEAD"));
+        if (cache == null && !coalesce)
+            return send(targetUrl, headers, method, requestcontent, proxy);
 
-            con.connect();
-            int status = con.getResponseCode();
+        String key = requestKey(targetUrl, headers, method, requestcontent, proxy, identity);
+        if (!coalesce)
+            return sendCached(cache, key, targetUrl, headers, proxy);
+        byte[] shared = IN_FLIGHT.execute(key, () -> cache != null
+                ? sendCached(cache, key, targetUrl, headers, proxy)
+                : send(targetUrl, headers, method, requestcontent, proxy));
+        return shared.clone();
+    }
 
+    /**
+     * Sends a GET request through the response cache: fresh entries are returned directly, stale entries are
+     * revalidated with a conditional request.
+     */
+    private static byte[] sendCached(HTTPResponseCache cache, String key, String targetUrl, Map<String, String> headers,
+                                     Proxy proxy) throws Exception {
+        long now = System.currentTimeMillis();
+        HTTPResponseCache.Entry entry = cache.get(key);
+        if (entry != null && entry.isFresh(now)) {
+            cache.recordHit();
+            return entry.body.clone();
+        }
+
+        Map<String, String> requestHeaders = headers;
+        if (entry != null) {
+            requestHeaders = new HashMap<>(headers);
+            if (entry.etag != null)
+                requestHeaders.put("If-None-Match", entry.etag);
+            if (entry.lastModified != null)
+                requestHeaders.put("If-Modified-Since", entry.lastModified);
+        }
+
+        HttpResponse<byte[]> response = exchange(targetUrl, requestHeaders, "GET", null, proxy);
+        int status = response.statusCode();
+        if (status == 304 && entry != null) {
+            cache.recordRevalidation();
+            return cache.revalidated(key, entry, response.headers(), now).body.clone();
+        }
+        if (status < 299) {
+            cache.recordMiss();
+            byte[] body = response.body();
+            cache.store(key, response.headers(), body.clone(), now);
+            return body;
+        }
+        throw new HTTPStatusException(status, "Error while calling " + targetUrl + " [" + status + "] Message: "
+                + new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] send(String targetUrl, Map<String, String> headers, String method,
+                               String requestcontent, Proxy proxy) throws Exception {
+        try {
+            HttpRequest request = buildRequest(targetUrl, headers, method, requestcontent);
+            HttpResponse<InputStream> response = client(proxy).send(request, HttpResponse.BodyHandlers.ofInputStream());
+            int status = response.statusCode();
+
+            byte[] body;
+            try (InputStream in = decode(response.body(), contentEncoding(response))) {
+                body = in.readAllBytes();
+            }
             if (status < 299) {
-                // Read successful response
-                try (InputStream in = con.getInputStream();
-                     ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
-                    byte[] data = new byte[16384];
-                    int nRead;
-                    while ((nRead = in.read(data, 0, data.length)) != -1) {
-                        buffer.write(data, 0, nRead);
-                    }
-                    return buffer.toByteArray();
-                } finally {
-                    con.disconnect();
-                }
+                return body;
             } else {
                 // Read error response
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(con.getErrorStream(), StandardCharsets.UTF_8))) {
-                    StringBuilder sb = new StringBuilder();
-                    String output;
-                    while ((output = br.readLine()) != null) {
-                        sb.append(output);
-                    }
-                    throw new Exception("Error while calling " + targetUrl + " [" + status + ": " +
-                            con.getResponseMessage() + "] Message: " + sb.toString());
-                } finally {
-                    con.disconnect();
+                throw new HTTPStatusException(status, "Error while calling " + targetUrl + " [" + status + "] Message: "
+                        + new String(body, StandardCharsets.UTF_8));
+            }
+        } catch (HTTPStatusException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Exception("Interrupted while calling " + targetUrl, e);
+        } catch (Exception e) {
+            throw new Exception("Error while calling " + targetUrl + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Makes an HTTP call and returns the response body as a stream, without buffering it in memory.
+     * The caller must close the stream. Requests are never coalesced.
+     *
+     * @param targetUrl      the URL to call
+     * @param headers        request headers to include
+     * @param method         HTTP method (e.g., GET, POST)
+     * @param requestcontent optional request body (for POST/PUT)
+     * @param proxy          optional proxy configuration
+     * @return response content as a stream
+     * @throws Exception if the request fails, {@link HTTPStatusException} if it returns an error status
+     */
+    public static InputStream externalCallStream(String targetUrl, Map<String, String> headers, String method,
+                                                 String requestcontent, Proxy proxy) throws Exception {
+        try {
+            HttpRequest request = buildRequest(targetUrl, headers, method, requestcontent);
+            HttpResponse<InputStream> response = client(proxy).send(request, HttpResponse.BodyHandlers.ofInputStream());
+            int status = response.statusCode();
+
+            InputStream body = decode(response.body(), contentEncoding(response));
+            if (status < 299) {
+                return body;
+            } else {
+                try (InputStream in = body) {
+                    throw new HTTPStatusException(status, "Error while calling " + targetUrl + " [" + status
+                            + "] Message: " + new String(in.readAllBytes(), StandardCharsets.UTF_8));
                 }
             }
+        } catch (HTTPStatusException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Exception("Interrupted while calling " + targetUrl, e);
+        } catch (Exception e) {
+            throw new Exception("Error while calling " + targetUrl + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Makes an HTTP call and returns the complete response, including status code and headers, without
+     * treating error statuses as failures. Requests are never coalesced.
+     *
+     * @param targetUrl      the URL to call
+     * @param headers        request headers to include
+     * @param method         HTTP method (e.g., GET, POST)
+     * @param requestcontent optional request body (for POST/PUT)
+     * @param proxy          optional proxy configuration
+     * @return the response
+     * @throws Exception if the request cannot be sent
+     */
+    public static HttpResponse<byte[]> exchange(String targetUrl, Map<String, String> headers, String method,
+                                                String requestcontent, Proxy proxy) throws Exception {
+        try {
+            HttpRequest request = buildRequest(targetUrl, headers, method, requestcontent);
+            return client(proxy).send(request, responseInfo -> HttpResponse.BodySubscribers.mapping(
+                    HttpResponse.BodySubscribers.ofByteArray(), bytes -> decode(bytes, contentEncoding(responseInfo))));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Exception("Interrupted while calling " + targetUrl, e);
         } catch (Exception e) {
             throw new Exception("Error while calling " + targetUrl + ": " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Builds the key identifying identical requests: method, URL, proxy, credentials identity, the headers
+     * selecting the response (e.g. {@code Accept}, Cloud Connector location ID) and a hash of the body. Header
+     * values are hashed so credentials are not kept in the key.
+     * <p>
+     * The request headers a response {@code Vary}s on are thereby part of the key, except the ones in
+     * {@link #UNKEYED_HEADERS}; responses with {@code Vary: *} are not cached at all.
+     */
+    private static String requestKey(String targetUrl, Map<String, String> headers, String method,
+                                     String requestcontent, Proxy proxy, String identity) throws Exception {
+        Map<String, String> sorted = new TreeMap<>();
+        headers.forEach((name, value) -> {
+            String lower = name != null ? name.toLowerCase() : null;
+            if (lower != null && value != null && !UNKEYED_HEADERS.contains(lower)
+                    && !(identity != null && lower.equals("authorization")))
+                sorted.put(lower, value);
+        });
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(sorted.toString().getBytes(StandardCharsets.UTF_8));
+        if (requestcontent != null)
+            digest.update(requestcontent.getBytes(StandardCharsets.UTF_8));
+        return ResultCache.key(method.toUpperCase(), targetUrl, proxy != null ? proxy.address() : "DIRECT",
+                identity != null ? identity : "", Base64.getEncoder().encodeToString(digest.digest()));
+    }
+
+    /**
+     * Builds a request. Headers managed by the HTTP client itself (e.g. Host, Content-Length) are skipped.
+     * The body is gzip-compressed when the headers contain {@code Content-Encoding: gzip}.
+     */
+    static HttpRequest buildRequest(String targetUrl, Map<String, String> headers, String method,
+                                    String requestcontent) throws IOException {
+        URI uri = URI.create(targetUrl);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(requestTimeout);
+        if (!"https".equalsIgnoreCase(uri.getScheme()))
+            builder.version(HttpClient.Version.HTTP_1_1);
+        boolean[] acceptEncoding = { false };
+        boolean[] gzipBody = { false };
+        headers.forEach((name, value) -> {
+            if (name != null && value != null && !RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                builder.header(name, value);
+                if (name.equalsIgnoreCase("Accept-Encoding"))
+                    acceptEncoding[0] = true;
+                else if (name.equalsIgnoreCase("Content-Encoding") && value.trim().equalsIgnoreCase("gzip"))
+                    gzipBody[0] = true;
+            }
+        });
+        if (responseCompression && !acceptEncoding[0])
+            builder.header("Accept-Encoding", ACCEPT_ENCODING);
+
+        // Write request body if applicable
+        if (requestcontent != null && !requestcontent.isEmpty()
+                && !(method.equalsIgnoreCase("GET") || method.equalsIgnoreCase("DELETE"))) {
+            byte[] body = requestcontent.getBytes(StandardCharsets.UTF_8);
+            builder.method(method.toUpperCase(), HttpRequest.BodyPublishers.ofByteArray(gzipBody[0] ? gzip(body) : body));
+        } else {
+            builder.method(method.toUpperCase(), HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+
+    private static String contentEncoding(HttpResponse.ResponseInfo responseInfo) {
+        return responseInfo.headers().firstValue("Content-Encoding").orElse(null);
+    }
+
+    private static String contentEncoding(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding").orElse(null);
+    }
+
+    /**
+     * Wraps a response body in a decompressing stream according to its Content-Encoding. Empty bodies (e.g. of
+     * HEAD requests or 304 responses) and unknown encodings are passed through unchanged.
+     */
+    static InputStream decode(InputStream in, String encoding) throws IOException {
+        if (encoding == null)
+            return in;
+        String coding = encoding.trim().toLowerCase();
+        if (!coding.equals("gzip") && !coding.equals("x-gzip") && !coding.equals("deflate"))
+            return in;
+
+        PushbackInputStream body = new PushbackInputStream(in, 2);
+        byte[] header = new byte[2];
+        int read = body.readNBytes(header, 0, 2);
+        if (read == 0)
+            return body;
+        body.unread(header, 0, read);
+
+        if (!coding.equals("deflate"))
+            return new GZIPInputStream(body, 8192);
+        // "deflate" is meant to be zlib-wrapped, but some servers send raw deflate data
+        boolean zlib = read == 2 && (header[0] & 0x0f) == 8 && (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+        return new DeflateInputStream(body, new Inflater(!zlib));
+    }
+
+    /**
+     * Inflates a deflate body with its own {@link Inflater}, which is ended on close. Unlike the GZIP stream,
+     * {@link InflaterInputStream} never ends an inflater passed in, which would keep its native memory until
+     * the inflater is garbage collected.
+     */
+    private static final class DeflateInputStream extends InflaterInputStream {
+        private boolean closed;
+
+        DeflateInputStream(InputStream in, Inflater inflater) {
+            super(in, inflater, 8192);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+
+    private static byte[] decode(byte[] body, String encoding) {
+        if (encoding == null || body.length == 0)
+            return body;
+        try (InputStream in = decode(new ByteArrayInputStream(body), encoding)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
 }
@@ -0,0 +1,268 @@
+package com.acn.utility;
+
+import java.net.http.HttpHeaders;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTPResponseCache is a bounded, thread-safe cache of GET response bodies following HTTP caching semantics.
+ * <p>
+ * Responses are kept together with their validators ({@code ETag}, {@code Last-Modified}). While a response is
+ * fresh according to {@code Cache-Control: max-age} or {@code Expires} it is served without a request; once it is
+ * stale, {@link HTTPClient} revalidates it with {@code If-None-Match} / {@code If-Modified-Since} and keeps using
+ * the cached body when the server answers {@code 304 Not Modified}. Responses marked {@code no-store} or
+ * {@code Vary: *} and responses without freshness information or validators are not cached. Stale entries stay
+ * in the cache until evicted by least-recently-used order, so they can still be revalidated.
+ *
+ * @see HTTPClient#setResponseCache(HTTPResponseCache)
+ */
+public class HTTPResponseCache {
+
+    private static final long ENTRY_OVERHEAD = 128;
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructs an HTTPResponseCache.
+     *
+     * @param maxEntries maximum number of cached responses
+     * @param maxBytes   maximum number of body bytes retained by the cache
+     */
+    public HTTPResponseCache(int maxEntries, long maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0)
+            throw new IllegalArgumentException("Cache bounds must be positive.");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached entry for a request, fresh or stale.
+     */
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches a {@code 2xx} response if its headers allow it.
+     *
+     * @return the new entry, or null if the response is not cacheable
+     */
+    Entry store(String key, HttpHeaders headers, byte[] body, long now) {
+        String cacheControl = String.join(",", headers.allValues("Cache-Control")).toLowerCase(Locale.ROOT);
+        boolean varyAll = headers.allValues("Vary").stream().anyMatch(v -> v.trim().equals("*"));
+        if (directive(cacheControl, "no-store") != null || varyAll) {
+            invalidate(key);
+            return null;
+        }
+        String etag = headers.firstValue("ETag").orElse(null);
+        String lastModified = headers.firstValue("Last-Modified").orElse(null);
+        long freshUntil = freshUntil(cacheControl, headers, now);
+        if (freshUntil <= now && etag == null && lastModified == null) {
+            invalidate(key);
+            return null;
+        }
+
+        Entry entry = new Entry(body, etag, lastModified, freshUntil, ENTRY_OVERHEAD + 2L * key.length() + body.length);
+        put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Refreshes an entry after a {@code 304 Not Modified} response, taking over updated validators and freshness.
+     *
+     * @return the refreshed entry
+     */
+    Entry revalidated(String key, Entry entry, HttpHeaders headers, long now) {
+        String cacheControl = String.join(",", headers.allValues("Cache-Control")).toLowerCase(Locale.ROOT);
+        Entry refreshed = new Entry(entry.body, headers.firstValue("ETag").orElse(entry.etag),
+                headers.firstValue("Last-Modified").orElse(entry.lastModified),
+                freshUntil(cacheControl, headers, now), entry.weight);
+        put(key, refreshed);
+        return refreshed;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        if (entry.weight > maxBytes)
+            return;
+        remove(key);
+        entries.put(key, entry);
+        currentBytes += entry.weight;
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            currentBytes -= eldest.getValue().weight;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        Entry old = entries.remove(key);
+        if (old != null)
+            currentBytes -= old.weight;
+    }
+
+    /**
+     * Computes the end of the freshness lifetime from {@code max-age} (less {@code Age}) or {@code Expires}.
+     * {@code no-cache} makes the response stale immediately, so it is revalidated on every use.
+     */
+    private static long freshUntil(String cacheControl, HttpHeaders headers, long now) {
+        if (directive(cacheControl, "no-cache") != null)
+            return now;
+        String maxAge = directive(cacheControl, "max-age");
+        if (maxAge != null) {
+            try {
+                long age = headers.firstValue("Age").map(Long::parseLong).orElse(0L);
+                return now + Math.max(0, Long.parseLong(maxAge) - age) * 1000;
+            } catch (NumberFormatException e) {
+                return now;
+            }
+        }
+        String expires = headers.firstValue("Expires").orElse(null);
+        if (expires != null) {
+            try {
+                long expiresAt = ZonedDateTime.parse(expires, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                long date = headers.firstValue("Date")
+                        .map(d -> ZonedDateTime.parse(d, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                        .orElse(now);
+                return now + Math.max(0, expiresAt - date);
+            } catch (RuntimeException e) {
+                // invalid dates mean "already expired"
+                return now;
+            }
+        }
+        return now;
+    }
+
+    /**
+     * Returns the value of a Cache-Control directive, "" for a directive without value, or null if absent.
+     */
+    private static String directive(String cacheControl, String name) {
+        for (String part : cacheControl.split(",")) {
+            String p = part.trim();
+            if (p.equals(name))
+                return "";
+            if (p.startsWith(name + "="))
+                return p.substring(name.length() + 1).replace("\"", "").trim();
+        }
+        return null;
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    void recordRevalidation() {
+        revalidations.incrementAndGet();
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    /**
+     * Removes the cached response of a request key.
+     *
+     * @param key the request key
+     */
+    public synchronized void invalidate(String key) {
+        remove(key);
+    }
+
+    /**
+     * Removes all cached responses.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Returns the number of requests answered from a fresh entry without contacting the server.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of stale entries confirmed by a {@code 304 Not Modified} response.
+     *
+     * @return revalidation count
+     */
+    public long getRevalidationCount() {
+        return revalidations.get();
+    }
+
+    /**
+     * Returns the number of requests that transferred a full response body.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries evicted to respect the size bounds.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the current number of cached responses.
+     *
+     * @return entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "HTTPResponseCache[size=" + size() + ", hits=" + hits + ", revalidations=" + revalidations
+                + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    /**
+     * Cached response body with its validators.
+     */
+    static final class Entry {
+        final byte[] body;
+        final String etag;
+        final String lastModified;
+        final long freshUntil;
+        final long weight;
+
+        Entry(byte[] body, String etag, String lastModified, long freshUntil, long weight) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.freshUntil = freshUntil;
+            this.weight = weight;
+        }
+
+        boolean isFresh(long now) {
+            return now < freshUntil;
+        }
+    }
+}
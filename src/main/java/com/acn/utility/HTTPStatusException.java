@@ -0,0 +1,48 @@
+package com.acn.utility;
+
+/**
+ * HTTPStatusException is thrown by {@link HTTPClient} when the target responds with a non-success
+ * HTTP status code. It keeps the status so callers (e.g. result caches) can react to specific codes
+ * such as {@code 404 Not Found}.
+ */
+public class HTTPStatusException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    /**
+     * Constructs an HTTPStatusException with the given status code and message.
+     *
+     * @param statusCode the HTTP status code returned by the target
+     * @param message    the error message
+     */
+    public HTTPStatusException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Returns the HTTP status code returned by the target.
+     *
+     * @return HTTP status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Searches the cause chain of the given throwable for an HTTPStatusException.
+     *
+     * @param t the throwable to inspect
+     * @return the HTTP status code, or -1 if none is found
+     */
+    public static int statusOf(Throwable t) {
+        while (t != null) {
+            if (t instanceof HTTPStatusException)
+                return ((HTTPStatusException) t).getStatusCode();
+            t = t.getCause();
+        }
+        return -1;
+    }
+}
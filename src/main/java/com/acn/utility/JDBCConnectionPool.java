@@ -0,0 +1,534 @@
+package com.acn.utility;
+
+import java.lang.ref.Cleaner;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JDBCConnectionPool is a process-wide pool of physical JDBC connections opened through {@link DriverManager},
+ * keyed by JDBC URL, user and Cloud Connector proxy settings.
+ * <p>
+ * Concurrent iFlow executions reuse warm connections instead of paying TCP, TLS and authentication setup for
+ * every lookup. The pool validates connections on borrow, evicts idle connections down to its minimum size,
+ * reports connections held longer than the leak threshold and records borrow-wait metrics. Each pooled
+ * connection keeps its own {@link StatementCache}, which survives across borrows.
+ * <p>
+ * Housekeeping runs on a shared daemon thread. It is stopped by {@link #shutdown()}, which is also called when the
+ * bundle containing this class is stopped (see {@link BundleShutdown}), so no thread or connection outlives a redeployment.
+ */
+public class JDBCConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(JDBCConnectionPool.class.getName());
+
+    private static final Set<String> VOLATILE_PROPERTIES = Set.of("password", "proxyUserName");
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    private static final long HOUSEKEEPING_INTERVAL_SECONDS = 30;
+
+    private static final Map<String, JDBCConnectionPool> POOLS = new ConcurrentHashMap<>();
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static volatile ScheduledExecutorService housekeeper;
+
+    static {
+        BundleShutdown.onStop(JDBCConnectionPool::shutdown);
+    }
+
+    private final String url;
+    private volatile Properties connectionProps;
+
+    private volatile int minSize = 0;
+    private volatile int maxSize = 10;
+    private volatile long idleTimeoutMillis = TimeUnit.MINUTES.toMillis(5);
+    private volatile long borrowTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+    private volatile long leakThresholdMillis = TimeUnit.MINUTES.toMillis(10);
+    private volatile int validationTimeoutSeconds = 5;
+
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = new LinkedHashSet<>();
+    private int total;
+    private boolean closed;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    private JDBCConnectionPool(String url, Properties connectionProps) {
+        this.url = url;
+        this.connectionProps = connectionProps;
+    }
+
+    /**
+     * Returns the shared pool for the JDBC URL and connection properties, creating it on first use.
+     * The latest properties (e.g. a refreshed proxy token) are used for connections created from now on.
+     *
+     * @param url             the JDBC URL
+     * @param connectionProps connection properties including user, password and proxy settings
+     * @return the shared pool
+     */
+    public static JDBCConnectionPool getPool(String url, Properties connectionProps) {
+        if (housekeeper == null)
+            startHousekeeper();
+        Properties props = new Properties();
+        props.putAll(connectionProps);
+        JDBCConnectionPool pool = POOLS.computeIfAbsent(poolKey(url, props), k -> new JDBCConnectionPool(url, props));
+        pool.connectionProps = props;
+        return pool;
+    }
+
+    private static String poolKey(String url, Properties props) {
+        Map<String, String> stable = new TreeMap<>();
+        props.forEach((k, v) -> {
+            if (!VOLATILE_PROPERTIES.contains(k.toString()))
+                stable.put(k.toString(), String.valueOf(v));
+        });
+        return ResultCache.key(url, ResultCache.credentialsIdentity(props.getProperty("user"),
+                props.getProperty("password")), stable);
+    }
+
+    private static synchronized void startHousekeeper() {
+        if (housekeeper != null)
+            return;
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "JDBCConnectionPool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(() -> POOLS.values().forEach(JDBCConnectionPool::housekeeping),
+                HOUSEKEEPING_INTERVAL_SECONDS, HOUSEKEEPING_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        housekeeper = executor;
+    }
+
+    /**
+     * Stops the housekeeping thread and closes all pools: idle connections are closed now, borrowed connections
+     * when they are released. Pools requested afterwards start over with new connections.
+     */
+    public static synchronized void shutdown() {
+        ScheduledExecutorService executor = housekeeper;
+        housekeeper = null;
+        if (executor != null)
+            executor.shutdownNow();
+        List<JDBCConnectionPool> pools = new ArrayList<>(POOLS.values());
+        POOLS.clear();
+        pools.forEach(JDBCConnectionPool::close);
+    }
+
+    private void close() {
+        List<PooledConnection> connections;
+        synchronized (this) {
+            closed = true;
+            connections = new ArrayList<>(idle);
+            idle.clear();
+        }
+        connections.forEach(this::destroy);
+    }
+
+    /**
+     * Borrows a validated connection, waiting up to the borrow timeout when the pool is exhausted.
+     *
+     * @return the borrowed connection
+     * @throws SQLException if no connection can be created or the borrow timeout elapses
+     */
+    public PooledConnection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection pc = null;
+            boolean create = false;
+            synchronized (this) {
+                while (pc == null && !create) {
+                    pc = idle.pollFirst();
+                    if (pc == null && total < maxSize) {
+                        total++;
+                        create = true;
+                    } else if (pc == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0)
+                            throw new SQLException("Timeout after " + borrowTimeoutMillis
+                                    + " ms waiting for a connection from pool " + this);
+                        try {
+                            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+                        }
+                    }
+                }
+            }
+
+            if (create) {
+                try {
+                    pc = new PooledConnection(this, DriverManager.getConnection(url, connectionProps));
+                    createdCount.incrementAndGet();
+                } catch (SQLException | RuntimeException e) {
+                    synchronized (this) {
+                        total--;
+                        notifyAll();
+                    }
+                    throw e;
+                }
+            } else if (!isValid(pc)) {
+                validationFailures.incrementAndGet();
+                destroy(pc);
+                continue;
+            }
+
+            long waited = System.nanoTime() - start;
+            borrowCount.incrementAndGet();
+            borrowWaitNanos.addAndGet(waited);
+            maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+
+            pc.borrowedAt = System.currentTimeMillis();
+            pc.borrowSite = new Exception("Connection borrowed here");
+            pc.leakReported = false;
+            synchronized (this) {
+                borrowed.add(pc);
+            }
+            return pc;
+        }
+    }
+
+    private boolean isValid(PooledConnection pc) {
+        try {
+            return pc.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool. Releasing a connection twice has no effect.
+     * Uncommitted work is rolled back; closed connections are discarded.
+     *
+     * @param pc the borrowed connection
+     */
+    public void release(PooledConnection pc) {
+        synchronized (this) {
+            if (!borrowed.remove(pc))
+                return;
+        }
+        try {
+            if (isClosed() || pc.connection.isClosed()) {
+                destroy(pc);
+                return;
+            }
+            if (!pc.connection.getAutoCommit()) {
+                pc.connection.rollback();
+                pc.connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            destroy(pc);
+            return;
+        }
+        pc.lastUsed = System.currentTimeMillis();
+        synchronized (this) {
+            if (!closed) {
+                idle.addFirst(pc);
+                notifyAll();
+                return;
+            }
+        }
+        destroy(pc);
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Releases the connection when the owner becomes unreachable without having released it.
+     * The returned handle releases the connection immediately when cleaned explicitly.
+     *
+     * @param owner the object holding the borrowed connection
+     * @param pc    the borrowed connection
+     * @return cleanup handle
+     */
+    public Cleaner.Cleanable releaseOnCleanup(Object owner, PooledConnection pc) {
+        return CLEANER.register(owner, () -> release(pc));
+    }
+
+    private void destroy(PooledConnection pc) {
+        pc.statementCache.close();
+        try {
+            pc.connection.close();
+        } catch (SQLException e) {
+            // connection is discarded anyway
+        }
+        destroyedCount.incrementAndGet();
+        synchronized (this) {
+            total--;
+            notifyAll();
+        }
+    }
+
+    private void housekeeping() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> expired = new ArrayList<>();
+        synchronized (this) {
+            while (total - expired.size() > minSize && !idle.isEmpty()
+                    && now - idle.peekLast().lastUsed > idleTimeoutMillis) {
+                expired.add(idle.pollLast());
+            }
+            for (PooledConnection pc : borrowed) {
+                if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMillis) {
+                    pc.leakReported = true;
+                    leakCount.incrementAndGet();
+                    LOGGER.log(Level.WARNING, "Connection from pool " + this + " held for " + (now - pc.borrowedAt)
+                            + " ms without being released, probably missing connectionClose()", pc.borrowSite);
+                }
+            }
+        }
+        expired.forEach(this::destroy);
+        topUp();
+    }
+
+    /**
+     * Opens the connections missing to the minimum size and adds them to the idle connections.
+     */
+    private void topUp() {
+        int missing;
+        synchronized (this) {
+            missing = closed ? 0 : Math.max(0, Math.min(minSize, maxSize) - total);
+            total += missing;
+        }
+        for (int i = 0; i < missing; i++) {
+            PooledConnection pc;
+            try {
+                pc = new PooledConnection(this, DriverManager.getConnection(url, connectionProps));
+                createdCount.incrementAndGet();
+            } catch (SQLException | RuntimeException e) {
+                synchronized (this) {
+                    total -= missing - i;
+                    notifyAll();
+                }
+                LOGGER.log(Level.WARNING, "Unable to top up pool " + this + ": " + e.getMessage(), e);
+                return;
+            }
+            pc.lastUsed = System.currentTimeMillis();
+            synchronized (this) {
+                if (!closed) {
+                    idle.addLast(pc);
+                    notifyAll();
+                    continue;
+                }
+            }
+            destroy(pc);
+        }
+    }
+
+    /**
+     * Sets the minimum number of connections kept open, including idle ones.
+     *
+     * @param minSize minimum pool size
+     */
+    public void setMinSize(int minSize) {
+        this.minSize = Math.max(0, minSize);
+    }
+
+    /**
+     * Sets the maximum number of open connections.
+     *
+     * @param maxSize maximum pool size
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Pool size must be positive.");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Sets how long a connection may stay idle before it is closed, as long as the pool is above its minimum size.
+     *
+     * @param idleTimeoutMillis idle timeout in milliseconds
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Sets how long {@link #borrow()} waits for a connection when the pool is exhausted.
+     *
+     * @param borrowTimeoutMillis borrow timeout in milliseconds
+     */
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    /**
+     * Sets after how long a borrowed connection is reported as a potential leak.
+     *
+     * @param leakThresholdMillis leak threshold in milliseconds
+     */
+    public void setLeakThresholdMillis(long leakThresholdMillis) {
+        this.leakThresholdMillis = leakThresholdMillis;
+    }
+
+    /**
+     * Sets the timeout of the validation performed on borrow.
+     *
+     * @param validationTimeoutSeconds validation timeout in seconds
+     */
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Returns the number of open connections, borrowed or idle.
+     *
+     * @return open connection count
+     */
+    public synchronized int getTotalCount() {
+        return total;
+    }
+
+    /**
+     * Returns the number of idle connections.
+     *
+     * @return idle connection count
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of borrowed connections.
+     *
+     * @return borrowed connection count
+     */
+    public synchronized int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Returns the number of successful borrows.
+     *
+     * @return borrow count
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * Returns the average time spent in {@link #borrow()}, including validation and connection creation.
+     *
+     * @return average borrow wait in milliseconds
+     */
+    public double getAverageBorrowWaitMillis() {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : borrowWaitNanos.get() / 1_000_000.0 / count;
+    }
+
+    /**
+     * Returns the longest time spent in {@link #borrow()}.
+     *
+     * @return maximum borrow wait in milliseconds
+     */
+    public double getMaxBorrowWaitMillis() {
+        return maxBorrowWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Returns the number of physical connections created.
+     *
+     * @return created connection count
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Returns the number of physical connections closed.
+     *
+     * @return destroyed connection count
+     */
+    public long getDestroyedCount() {
+        return destroyedCount.get();
+    }
+
+    /**
+     * Returns the number of idle connections that failed validation on borrow.
+     *
+     * @return validation failure count
+     */
+    public long getValidationFailureCount() {
+        return validationFailures.get();
+    }
+
+    /**
+     * Returns the number of connections reported as potential leaks.
+     *
+     * @return leak count
+     */
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "JDBCConnectionPool[" + url + ", user=" + connectionProps.getProperty("user") + "]";
+    }
+
+    /**
+     * A physical connection owned by a {@link JDBCConnectionPool}, together with its statement cache.
+     */
+    public static final class PooledConnection {
+        private final JDBCConnectionPool pool;
+        private final Connection connection;
+        private final StatementCache statementCache;
+        private volatile long lastUsed;
+        private volatile long borrowedAt;
+        private volatile Exception borrowSite;
+        private volatile boolean leakReported;
+
+        private PooledConnection(JDBCConnectionPool pool, Connection connection) {
+            this.pool = pool;
+            this.connection = connection;
+            this.statementCache = new StatementCache(connection, STATEMENT_CACHE_SIZE);
+        }
+
+        /**
+         * Returns the physical connection. It must not be closed by the caller; release it to the pool instead.
+         *
+         * @return JDBC connection
+         */
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * Returns the prepared statement cache of this connection.
+         *
+         * @return statement cache
+         */
+        public StatementCache getStatementCache() {
+            return statementCache;
+        }
+
+        /**
+         * Returns this connection to its pool.
+         */
+        public void release() {
+            pool.release(this);
+        }
+    }
+}
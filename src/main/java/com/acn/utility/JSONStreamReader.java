@@ -0,0 +1,301 @@
+package com.acn.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+/**
+ * JSONStreamReader is a pull-based JSON tokenizer reading directly from a stream.
+ * <p>
+ * Unlike {@code org.json.JSONObject}, it never materialises the document: the caller pulls one token at a time
+ * with {@link #next()} and can skip whole subtrees with {@link #skipValue()}, so memory stays bounded by the
+ * largest single token regardless of the response size.
+ */
+public class JSONStreamReader implements Closeable {
+
+    /**
+     * JSON tokens returned by {@link JSONStreamReader#next()}.
+     */
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // RFC 8259 number grammar
+    private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+
+    // true for object, false for array
+    private final Deque<Boolean> scopes = new ArrayDeque<>();
+    private boolean expectName;
+    private boolean expectValue;
+    // a complete value was read, so ',' or the end of the enclosing scope must follow
+    private boolean afterValue;
+    private Token peeked;
+    private String text;
+
+    /**
+     * Constructs a JSONStreamReader reading UTF-8 JSON from an InputStream.
+     *
+     * @param in the JSON content
+     */
+    public JSONStreamReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Constructs a JSONStreamReader reading JSON from a Reader.
+     *
+     * @param reader the JSON content
+     */
+    public JSONStreamReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the next token without consuming it.
+     *
+     * @return the next token
+     * @throws IOException if reading fails or the JSON is malformed
+     */
+    public Token peek() throws IOException {
+        if (peeked == null)
+            peeked = read();
+        return peeked;
+    }
+
+    /**
+     * Consumes and returns the next token. For {@link Token#NAME}, {@link Token#STRING}, {@link Token#NUMBER}
+     * and {@link Token#BOOLEAN} the token text is available from {@link #getText()}.
+     *
+     * @return the next token
+     * @throws IOException if reading fails or the JSON is malformed
+     */
+    public Token next() throws IOException {
+        Token token = peek();
+        peeked = null;
+        return token;
+    }
+
+    /**
+     * Returns the text of the last name or scalar token.
+     *
+     * @return token text, or null for {@link Token#NULL}
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Skips the next value, including all nested objects and arrays.
+     *
+     * @throws IOException if reading fails or the JSON is malformed
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            Token token = next();
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY)
+                depth++;
+            else if (token == Token.END_OBJECT || token == Token.END_ARRAY)
+                depth--;
+            else if (token == Token.END_DOCUMENT)
+                throw new IOException("Unexpected end of JSON document");
+        } while (depth > 0);
+    }
+
+    /**
+     * Reads the next scalar value as text, or skips a nested value.
+     *
+     * @return the value text, null for JSON null or for a skipped object or array
+     * @throws IOException if reading fails or the JSON is malformed
+     */
+    public String nextScalarOrSkip() throws IOException {
+        Token token = peek();
+        if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+            skipValue();
+            return null;
+        }
+        next();
+        return token == Token.NULL ? null : text;
+    }
+
+    private Token read() throws IOException {
+        int c = nextNonWhitespace();
+        if (afterValue) {
+            if (scopes.isEmpty()) {
+                if (c != -1)
+                    throw syntaxError("Unexpected content after end of document");
+            } else if (c == ',') {
+                expectName = scopes.peek();
+                c = nextNonWhitespace();
+                if (c == '}' || c == ']')
+                    throw syntaxError("Unexpected '" + (char) c + "' after ','");
+            } else if (c != '}' && c != ']' && c != -1) {
+                throw syntaxError("Expected ',' between values");
+            }
+        } else if (c == ',') {
+            throw syntaxError("Unexpected ','");
+        }
+        if (expectName && c != '"' && c != '}' && c != -1)
+            throw syntaxError("Expected name");
+        if (expectValue && (c == '}' || c == ']'))
+            throw syntaxError("Expected value after name");
+        expectValue = false;
+        afterValue = true;
+
+        switch (c) {
+            case -1:
+                if (!scopes.isEmpty())
+                    throw syntaxError("Unexpected end of JSON document");
+                return Token.END_DOCUMENT;
+            case '{':
+                scopes.push(Boolean.TRUE);
+                expectName = true;
+                afterValue = false;
+                return Token.BEGIN_OBJECT;
+            case '}':
+                popScope(true);
+                return Token.END_OBJECT;
+            case '[':
+                scopes.push(Boolean.FALSE);
+                expectName = false;
+                afterValue = false;
+                return Token.BEGIN_ARRAY;
+            case ']':
+                popScope(false);
+                return Token.END_ARRAY;
+            case '"':
+                text = readString();
+                if (expectName) {
+                    if (nextNonWhitespace() != ':')
+                        throw syntaxError("Expected ':' after name");
+                    expectName = false;
+                    expectValue = true;
+                    afterValue = false;
+                    return Token.NAME;
+                }
+                return Token.STRING;
+            default:
+                text = readLiteral((char) c);
+                if (text.equals("null")) {
+                    text = null;
+                    return Token.NULL;
+                }
+                if (text.equals("true") || text.equals("false"))
+                    return Token.BOOLEAN;
+                if (NUMBER.matcher(text).matches())
+                    return Token.NUMBER;
+                throw syntaxError("Unexpected literal '" + text + "'");
+        }
+    }
+
+    private void popScope(boolean object) throws IOException {
+        if (scopes.isEmpty() || scopes.pop() != object)
+            throw syntaxError("Unbalanced " + (object ? "'}'" : "']'"));
+        expectName = false;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            int c = read1();
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+                return c;
+        }
+    }
+
+    private int read1() throws IOException {
+        if (pos == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[pos++];
+    }
+
+    private String readString() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int c = read1();
+            if (c == -1)
+                throw syntaxError("Unterminated string");
+            if (c == '"')
+                return sb.toString();
+            if (c < 0x20)
+                throw syntaxError("Unescaped control character in string");
+            if (c == '\\') {
+                int e = read1();
+                switch (e) {
+                    case '"': case '\\': case '/': sb.append((char) e); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int h = hexDigit(read1());
+                            if (h < 0)
+                                throw syntaxError("Invalid unicode escape");
+                            code = code * 16 + h;
+                        }
+                        sb.append((char) code);
+                        break;
+                    case -1:
+                        throw syntaxError("Unterminated string");
+                    default:
+                        throw syntaxError("Invalid escape '\\" + (char) e + "'");
+                }
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    private static int hexDigit(int c) {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        if (c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        return -1;
+    }
+
+    private String readLiteral(char first) throws IOException {
+        StringBuilder sb = new StringBuilder().append(first);
+        while (true) {
+            if (pos == limit && read1() != -1)
+                pos--;
+            if (pos == limit)
+                return sb.toString();
+            char c = buffer[pos];
+            if (c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\t' || c == '\n' || c == '\r')
+                return sb.toString();
+            sb.append(c);
+            pos++;
+        }
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,241 @@
+package com.acn.utility;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * LRUResultCache is a bounded, thread-safe {@link ResultCache} with per-entry time-to-live and
+ * least-recently-used eviction.
+ * <p>
+ * The cache is bounded both by number of entries and by an estimate of the retained bytes.
+ * Empty results and {@code 404 Not Found} failures are not cached unless negative caching is
+ * enabled via {@link #setNegativeTtlMillis(long)}. A cached failure is rethrown as is, so a hit fails with the
+ * same exception type as the call that loaded it.
+ *
+ * @param <V> the type of the cached result
+ */
+public class LRUResultCache<V> implements ResultCache<V> {
+
+    private static final long ENTRY_OVERHEAD = 64;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+    private volatile long negativeTtlMillis;
+
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * Constructs an LRUResultCache for String results.
+     *
+     * @param maxEntries maximum number of cached entries
+     * @param maxBytes   maximum estimated bytes retained by the cache
+     * @param ttlMillis  time-to-live of each entry in milliseconds
+     */
+    public LRUResultCache(int maxEntries, long maxBytes, long ttlMillis) {
+        this(maxEntries, maxBytes, ttlMillis, null);
+    }
+
+    /**
+     * Constructs an LRUResultCache with a custom size estimator.
+     *
+     * @param maxEntries maximum number of cached entries
+     * @param maxBytes   maximum estimated bytes retained by the cache
+     * @param ttlMillis  time-to-live of each entry in milliseconds
+     * @param weigher    estimates the bytes retained by a value, or null to use the default estimate
+     */
+    public LRUResultCache(int maxEntries, long maxBytes, long ttlMillis, ToLongFunction<V> weigher) {
+        if (maxEntries <= 0 || maxBytes <= 0 || ttlMillis <= 0)
+            throw new IllegalArgumentException("Cache bounds and TTL must be positive.");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher != null ? weigher : LRUResultCache::defaultWeight;
+    }
+
+    /**
+     * Enables negative caching of empty and {@code 404 Not Found} results.
+     *
+     * @param negativeTtlMillis time-to-live of negative entries in milliseconds, 0 disables negative caching
+     */
+    public void setNegativeTtlMillis(long negativeTtlMillis) {
+        this.negativeTtlMillis = Math.max(0, negativeTtlMillis);
+    }
+
+    @Override
+    public V getOrLoad(String key, Loader<V> loader, Predicate<V> isEmpty) throws Exception {
+        Entry<V> entry = lookup(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            if (entry.negative)
+                negativeHits.incrementAndGet();
+            if (entry.failure != null)
+                throw entry.failure;
+            return entry.value;
+        }
+
+        misses.incrementAndGet();
+        V value;
+        try {
+            value = loader.load();
+        } catch (Exception e) {
+            if (negativeTtlMillis > 0 && HTTPStatusException.statusOf(e) == 404)
+                store(key, new Entry<>(null, e, true, negativeTtlMillis, weigh(key, null)));
+            throw e;
+        }
+
+        if (value == null || isEmpty.test(value)) {
+            if (negativeTtlMillis > 0)
+                store(key, new Entry<>(value, null, true, negativeTtlMillis, weigh(key, value)));
+        } else {
+            store(key, new Entry<>(value, null, false, ttlMillis, weigh(key, value)));
+        }
+        return value;
+    }
+
+    private synchronized Entry<V> lookup(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null)
+            return null;
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(key);
+            expirations.incrementAndGet();
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void store(String key, Entry<V> entry) {
+        if (entry.weight > maxBytes)
+            return;
+        remove(key);
+        entries.put(key, entry);
+        currentBytes += entry.weight;
+
+        Iterator<Map.Entry<String, Entry<V>>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<String, Entry<V>> eldest = it.next();
+            it.remove();
+            currentBytes -= eldest.getValue().weight;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        Entry<V> old = entries.remove(key);
+        if (old != null)
+            currentBytes -= old.weight;
+    }
+
+    private long weigh(String key, V value) {
+        return ENTRY_OVERHEAD + 2L * key.length() + (value != null ? weigher.applyAsLong(value) : 0);
+    }
+
+    private static long defaultWeight(Object value) {
+        return (value instanceof CharSequence) ? 2L * ((CharSequence) value).length() : ENTRY_OVERHEAD;
+    }
+
+    @Override
+    public synchronized void invalidate(String key) {
+        remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of hits answered by a negative entry.
+     *
+     * @return negative hit count
+     */
+    public long getNegativeHitCount() {
+        return negativeHits.get();
+    }
+
+    /**
+     * Returns the number of entries evicted to respect the size bounds.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of entries dropped because their TTL elapsed.
+     *
+     * @return expiration count
+     */
+    public long getExpirationCount() {
+        return expirations.get();
+    }
+
+    /**
+     * Returns the current number of cached entries.
+     *
+     * @return entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated bytes currently retained by the cache.
+     *
+     * @return estimated bytes
+     */
+    public synchronized long getEstimatedBytes() {
+        return currentBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "LRUResultCache[size=" + size() + ", bytes=" + getEstimatedBytes() + ", hits=" + hits.get()
+                + ", misses=" + misses.get() + ", negativeHits=" + negativeHits.get()
+                + ", evictions=" + evictions.get() + ", expirations=" + expirations.get() + "]";
+    }
+
+    /**
+     * Cached value or failure with its expiry time.
+     */
+    private static final class Entry<V> {
+        final V value;
+        final Exception failure;
+        final boolean negative;
+        final long expiresAt;
+        final long weight;
+
+        Entry(V value, Exception failure, boolean negative, long ttlMillis, long weight) {
+            this.value = value;
+            this.failure = failure;
+            this.negative = negative;
+            this.expiresAt = System.currentTimeMillis() + ttlMillis;
+            this.weight = weight;
+        }
+    }
+}
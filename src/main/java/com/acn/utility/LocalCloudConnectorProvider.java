@@ -0,0 +1,39 @@
+package com.acn.utility;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LocalCloudConnectorProvider is a {@link CloudConnectorProvider} with fixed proxy settings, to run lookups
+ * off-tenant, e.g. in tests or against a locally reachable proxy, without the SAP Integration Suite API.
+ */
+public class LocalCloudConnectorProvider implements CloudConnectorProvider {
+
+    private final String proxyHost;
+    private final int httpPort;
+    private final int tcpPort;
+    private final Map<String, String> proxyHeaders;
+
+    /**
+     * Constructs a LocalCloudConnectorProvider.
+     *
+     * @param proxyHost    the proxy host
+     * @param httpPort     the proxy port for HTTP connections
+     * @param tcpPort      the proxy port for TCP connections
+     * @param proxyHeaders additional headers sent with each request, or null
+     */
+    public LocalCloudConnectorProvider(String proxyHost, int httpPort, int tcpPort, Map<String, String> proxyHeaders) {
+        this.proxyHost = proxyHost;
+        this.httpPort = httpPort;
+        this.tcpPort = tcpPort;
+        this.proxyHeaders = proxyHeaders != null ? new HashMap<>(proxyHeaders) : new HashMap<>();
+    }
+
+    @Override
+    public CloudConnector get(String locationId, String type) {
+        Map<String, String> headers = new HashMap<>(proxyHeaders);
+        if (locationId != null && !locationId.isEmpty())
+            headers.put("SAP-Connectivity-SCC-Location_ID", locationId);
+        return new CloudConnector(proxyHost, type.equalsIgnoreCase("TCP") ? tcpPort : httpPort, type, headers);
+    }
+}
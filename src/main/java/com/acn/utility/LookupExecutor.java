@@ -0,0 +1,268 @@
+package com.acn.utility;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * LookupExecutor runs the asynchronous ({@code ...Async}) variants of the lookup methods.
+ * <p>
+ * Tasks run on a virtual-thread-per-task executor when the runtime supports virtual threads (Java 21+),
+ * otherwise on a cached pool of daemon threads. The number of tasks running concurrently against the same
+ * backend (host, database or RFC destination) is bounded, so a mapping can fan out hundreds of lookups
+ * without flooding a single system. Tasks beyond the limit wait in a queue of their backend and are only
+ * handed to the executor when a running task of that backend completes, so they do not occupy a thread
+ * while waiting.
+ * <p>
+ * A task may submit further tasks to its own backend, e.g. a batch or a page prefetch started from an
+ * asynchronous lookup. If the backend has no free slot then, the nested task runs inline on the submitting
+ * thread instead of waiting, as the slots may all be held by tasks waiting for their nested tasks.
+ */
+public class LookupExecutor {
+
+    private static final ExecutorService DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    private static final Map<String, Backend> BACKENDS = new ConcurrentHashMap<>();
+
+    // backend of the task running on the current thread, set only while the task runs
+    private static final ThreadLocal<Backend> CURRENT = new ThreadLocal<>();
+
+    private static volatile ExecutorService executor = DEFAULT_EXECUTOR;
+    private static volatile int defaultMaxConcurrency = 16;
+
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (Throwable e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "LookupExecutor-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Replaces the executor running lookup tasks, or restores the default when null.
+     *
+     * @param lookupExecutor the executor
+     */
+    public static void setExecutor(ExecutorService lookupExecutor) {
+        executor = lookupExecutor != null ? lookupExecutor : DEFAULT_EXECUTOR;
+    }
+
+    /**
+     * Sets the concurrency limit for backends without an explicit limit (default 16).
+     * Applies to backends first used from now on.
+     *
+     * @param maxConcurrency maximum concurrent tasks per backend
+     */
+    public static void setDefaultMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException("Concurrency limit must be positive.");
+        defaultMaxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Sets the concurrency limit for one backend. A raised limit starts waiting tasks right away; after a
+     * lowered one, no task starts until fewer tasks than the new limit are running.
+     *
+     * @param backend        backend key, e.g. {@code HTTP|https://host:443}, see {@link #httpBackend(String)}
+     * @param maxConcurrency maximum concurrent tasks for the backend
+     */
+    public static void setMaxConcurrency(String backend, int maxConcurrency) {
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException("Concurrency limit must be positive.");
+        BACKENDS.computeIfAbsent(backend, k -> new Backend(maxConcurrency)).resize(maxConcurrency);
+    }
+
+    /**
+     * Runs a lookup task asynchronously, bounded by the concurrency limit of its backend. Cancelling the
+     * returned future drops the task if it is still waiting and interrupts it if it is running. Submitted from
+     * a task of the same backend while the backend has no free slot, the task runs inline and the returned
+     * future is already completed.
+     *
+     * @param backend backend key the task runs against
+     * @param task    the lookup
+     * @param <T>     result type
+     * @return future completed with the lookup result or failure
+     */
+    public static <T> CompletableFuture<T> submit(String backend, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Job<T> job = new Job<>(task, future);
+        future.whenComplete((result, failure) -> {
+            if (future.isCancelled())
+                job.interrupt();
+        });
+        BACKENDS.computeIfAbsent(backend, k -> new Backend(defaultMaxConcurrency)).submit(job);
+        return future;
+    }
+
+    /**
+     * Tells whether the current thread is running a task of the backend, i.e. holds one of its slots. Such a
+     * task can run further work of the backend itself instead of submitting and waiting for it.
+     *
+     * @param backend backend key
+     * @return true if called from a task of the backend
+     */
+    public static boolean isRunningIn(String backend) {
+        Backend current = CURRENT.get();
+        return current != null && current == BACKENDS.get(backend);
+    }
+
+    /**
+     * Returns the backend key of an HTTP endpoint: scheme, host and port, with the default port of the scheme
+     * when the URL has none, so {@code https://host} and {@code https://host:443} share one limit.
+     *
+     * @param url the endpoint URL
+     * @return backend key
+     */
+    public static String httpBackend(String url) {
+        try {
+            URI uri = URI.create(url);
+            int port = uri.getPort();
+            if (port < 0)
+                port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : "http".equalsIgnoreCase(uri.getScheme()) ? 80 : -1;
+            return "HTTP|" + uri.getScheme() + "://" + uri.getHost() + ":" + port;
+        } catch (IllegalArgumentException e) {
+            return "HTTP|" + url;
+        }
+    }
+
+    /**
+     * The tasks of one backend: at most {@code maxConcurrency} are handed to the executor, the rest wait in
+     * submission order.
+     */
+    private static final class Backend {
+        private final Deque<Job<?>> waiting = new ArrayDeque<>();
+        private int maxConcurrency;
+        private int running;
+
+        Backend(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        void submit(Job<?> job) {
+            boolean inline = false;
+            synchronized (this) {
+                if (running < maxConcurrency) {
+                    running++;
+                } else if (CURRENT.get() == this) {
+                    // nested in a task of this backend holding a slot: waiting for another slot could deadlock
+                    inline = true;
+                } else {
+                    waiting.addLast(job);
+                    return;
+                }
+            }
+            if (inline)
+                job.run();
+            else
+                dispatch(job);
+        }
+
+        void resize(int maxConcurrency) {
+            List<Job<?>> started = new ArrayList<>();
+            synchronized (this) {
+                this.maxConcurrency = maxConcurrency;
+                while (running < maxConcurrency && !waiting.isEmpty()) {
+                    started.add(waiting.pollFirst());
+                    running++;
+                }
+            }
+            started.forEach(this::dispatch);
+        }
+
+        private void dispatch(Job<?> job) {
+            while (job != null) {
+                Job<?> current = job;
+                try {
+                    executor.execute(() -> {
+                        Backend previous = CURRENT.get();
+                        CURRENT.set(this);
+                        try {
+                            current.run();
+                        } finally {
+                            if (previous != null)
+                                CURRENT.set(previous);
+                            else
+                                CURRENT.remove();
+                            Job<?> next = next();
+                            if (next != null)
+                                dispatch(next);
+                        }
+                    });
+                    return;
+                } catch (RejectedExecutionException e) {
+                    current.reject(e);
+                    job = next();
+                }
+            }
+        }
+
+        /**
+         * Returns the next waiting job, keeping the slot of the completed one, or frees the slot if none waits or
+         * the limit has been lowered below the running tasks.
+         */
+        private synchronized Job<?> next() {
+            Job<?> job = running <= maxConcurrency ? waiting.pollFirst() : null;
+            if (job == null)
+                running--;
+            return job;
+        }
+    }
+
+    private static final class Job<T> {
+        private final Callable<T> task;
+        private final CompletableFuture<T> future;
+        private Thread runner;
+
+        Job(Callable<T> task, CompletableFuture<T> future) {
+            this.task = task;
+            this.future = future;
+        }
+
+        void run() {
+            synchronized (this) {
+                // cancelled while waiting
+                if (future.isDone())
+                    return;
+                runner = Thread.currentThread();
+            }
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    // an interrupt of the cancelled task must not hit the next task of this worker
+                    if (future.isCancelled())
+                        Thread.interrupted();
+                }
+            }
+        }
+
+        synchronized void interrupt() {
+            if (runner != null)
+                runner.interrupt();
+        }
+
+        void reject(Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.acn.utility;
+
+import java.net.Proxy;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONObject;
+
+/**
+ * OAuth2ClientCredentials authenticates requests with a bearer token obtained by the OAuth2 client credentials
+ * grant.
+ * <p>
+ * Tokens are cached process-wide per token URL, client credentials and scope, so all lookups using the same
+ * client share one token. A token is refreshed shortly before it expires (see
+ * {@link #setRefreshMarginMillis(long)}); concurrent callers needing a refresh wait for a single token request.
+ * If an early refresh fails, the current token is used as long as it has not expired.
+ * <p>
+ * The token endpoint is called directly, or through SAP Cloud Connector when it is on premise.
+ */
+public class OAuth2ClientCredentials implements AuthStrategy {
+
+    private static final Map<String, Token> TOKENS = new ConcurrentHashMap<>();
+    private static final SingleFlight<Token> TOKEN_REQUESTS = new SingleFlight<>();
+
+    private static volatile long refreshMarginMillis = 60_000;
+
+    private final String tokenUrl;
+    private final String clientId;
+    private final String clientSecret;
+    private final String scope;
+    private final String identity;
+    private final CloudConnector cloudConnector;
+
+    /**
+     * Constructs an OAuth2ClientCredentials strategy without scope.
+     *
+     * @param tokenUrl     the token endpoint
+     * @param clientId     the client ID
+     * @param clientSecret the client secret
+     */
+    public OAuth2ClientCredentials(String tokenUrl, String clientId, String clientSecret) {
+        this(tokenUrl, clientId, clientSecret, null);
+    }
+
+    /**
+     * Constructs an OAuth2ClientCredentials strategy.
+     *
+     * @param tokenUrl     the token endpoint
+     * @param clientId     the client ID
+     * @param clientSecret the client secret
+     * @param scope        space-separated scopes to request, or null
+     */
+    public OAuth2ClientCredentials(String tokenUrl, String clientId, String clientSecret, String scope) {
+        this(tokenUrl, clientId, clientSecret, scope, null);
+    }
+
+    /**
+     * Constructs an OAuth2ClientCredentials strategy requesting its tokens through SAP Cloud Connector.
+     *
+     * @param tokenUrl         the token endpoint
+     * @param clientId         the client ID
+     * @param clientSecret     the client secret
+     * @param scope            space-separated scopes to request, or null
+     * @param isCloudConnector flag indicating whether the token endpoint is reached through Cloud Connector
+     * @param locationID       the location ID for Cloud Connector
+     * @throws Exception if the Cloud Connector configuration cannot be read
+     */
+    public OAuth2ClientCredentials(String tokenUrl, String clientId, String clientSecret, String scope,
+                                   boolean isCloudConnector, String locationID) throws Exception {
+        this(tokenUrl, clientId, clientSecret, scope, isCloudConnector ? CloudConnector.of(locationID, "HTTP") : null);
+    }
+
+    private OAuth2ClientCredentials(String tokenUrl, String clientId, String clientSecret, String scope,
+                                    CloudConnector cloudConnector) {
+        if (tokenUrl == null || tokenUrl.isEmpty() || clientId == null)
+            throw new IllegalArgumentException("Token URL and client ID must not be null or empty.");
+        this.tokenUrl = tokenUrl;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.scope = scope;
+        this.cloudConnector = cloudConnector;
+        this.identity = ResultCache.key("OAUTH2", tokenUrl, ResultCache.credentialsIdentity(clientId, clientSecret),
+                scope != null ? scope : "");
+    }
+
+    /**
+     * Sets how long before expiry cached tokens are refreshed (default 60 seconds). For short-lived tokens at
+     * most half of the token lifetime is used.
+     *
+     * @param millis refresh margin in milliseconds
+     */
+    public static void setRefreshMarginMillis(long millis) {
+        refreshMarginMillis = Math.max(0, millis);
+    }
+
+    /**
+     * Drops all cached tokens.
+     */
+    public static void clearTokens() {
+        TOKENS.clear();
+    }
+
+    @Override
+    public void apply(Map<String, String> headers) throws Exception {
+        headers.put("Authorization", token().authorization);
+    }
+
+    @Override
+    public String identity() {
+        return identity;
+    }
+
+    /**
+     * Drops the cached token of this client, e.g. after the target rejected it, so the next request fetches a
+     * new one.
+     */
+    public void invalidate() {
+        TOKENS.remove(identity);
+    }
+
+    private Token token() throws Exception {
+        Token token = TOKENS.get(identity);
+        if (token != null && !token.needsRefresh(System.currentTimeMillis()))
+            return token;
+
+        try {
+            return TOKEN_REQUESTS.execute(identity, () -> {
+                Token current = TOKENS.get(identity);
+                if (current != null && !current.needsRefresh(System.currentTimeMillis()))
+                    return current;
+                Token fresh = requestToken();
+                TOKENS.put(identity, fresh);
+                return fresh;
+            });
+        } catch (Exception e) {
+            if (token != null && !token.isExpired(System.currentTimeMillis()))
+                return token;
+            throw e;
+        }
+    }
+
+    private Token requestToken() throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        // RFC 6749 section 2.3.1: the client credentials are form-urlencoded before Basic encoding
+        String credentials = formEncode(clientId) + ":" + formEncode(clientSecret != null ? clientSecret : "");
+        headers.put("Authorization",
+                "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        headers.put("Content-Type", "application/x-www-form-urlencoded");
+        headers.put("Accept", "application/json");
+
+        String body = "grant_type=client_credentials";
+        if (scope != null && !scope.isEmpty())
+            body += "&scope=" + formEncode(scope);
+
+        Proxy proxy = null;
+        if (cloudConnector != null) {
+            headers.putAll(cloudConnector.getProxyHeaders());
+            proxy = cloudConnector.getProxy();
+        }
+
+        long requestedAt = System.currentTimeMillis();
+        JSONObject response = new JSONObject(HTTPClient.externalCall(tokenUrl, headers, "POST", body, proxy));
+        String accessToken = response.optString("access_token", null);
+        if (accessToken == null || accessToken.isEmpty())
+            throw new Exception("Token response of " + tokenUrl + " contains no access_token.");
+
+        String tokenType = response.optString("token_type", "Bearer");
+        if (tokenType.equalsIgnoreCase("bearer"))
+            tokenType = "Bearer";
+        long lifetime = response.optLong("expires_in", 3600) * 1000;
+        return new Token(tokenType + " " + accessToken, requestedAt + lifetime,
+                requestedAt + lifetime - Math.min(refreshMarginMillis, lifetime / 2));
+    }
+
+    private static String formEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class Token {
+        final String authorization;
+        final long expiresAt;
+        final long refreshAt;
+
+        Token(String authorization, long expiresAt, long refreshAt) {
+            this.authorization = authorization;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+
+        boolean needsRefresh(long now) {
+            return now >= refreshAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.acn.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * ODataBatch builds multipart/mixed OData {@code $batch} request bodies made of GET requests and parses
+ * the corresponding multipart responses. The format is shared by OData V2 and V4.
+ */
+public class ODataBatch {
+
+    private static final String CRLF = "\r\n";
+
+    private final String boundary = "batch_" + UUID.randomUUID();
+
+    /**
+     * Returns the content type of the batch request, including its boundary.
+     *
+     * @return content type header value
+     */
+    public String getContentType() {
+        return "multipart/mixed; boundary=" + boundary;
+    }
+
+    /**
+     * Builds the batch request body with one GET request per URL.
+     *
+     * @param relativeUrls request URLs relative to the service root
+     * @param accept       Accept header sent with each request
+     * @return the request body
+     */
+    public String buildRequest(List<String> relativeUrls, String accept) {
+        StringBuilder sb = new StringBuilder();
+        for (String url : relativeUrls) {
+            sb.append("--").append(boundary).append(CRLF)
+                    .append("Content-Type: application/http").append(CRLF)
+                    .append("Content-Transfer-Encoding: binary").append(CRLF)
+                    .append(CRLF)
+                    .append("GET ").append(url).append(" HTTP/1.1").append(CRLF)
+                    .append("Accept: ").append(accept).append(CRLF)
+                    .append(CRLF);
+        }
+        sb.append("--").append(boundary).append("--").append(CRLF);
+        return sb.toString();
+    }
+
+    /**
+     * Parses a multipart batch response into its individual responses, in request order.
+     *
+     * @param contentType the Content-Type header of the batch response
+     * @param body        the batch response body
+     * @return one part per request
+     * @throws Exception if the response is not a valid multipart batch response
+     */
+    public static List<Part> parseResponse(String contentType, String body) throws Exception {
+        String responseBoundary = boundaryOf(contentType);
+        List<Part> parts = new ArrayList<>();
+        String delimiter = "--" + responseBoundary;
+
+        int pos = body.indexOf(delimiter);
+        while (pos >= 0) {
+            int start = pos + delimiter.length();
+            if (body.startsWith("--", start))
+                break;
+            int next = body.indexOf(delimiter, start);
+            if (next < 0)
+                throw new Exception("Unterminated batch response part");
+            parts.add(parsePart(body.substring(start, next)));
+            pos = next;
+        }
+        return parts;
+    }
+
+    private static Part parsePart(String part) throws Exception {
+        // MIME headers of the part, then the embedded HTTP response
+        int httpStart = headerEnd(part, 0);
+        if (httpStart < 0)
+            throw new Exception("Invalid batch response part");
+
+        String http = part.substring(httpStart);
+        int lineEnd = http.indexOf('\n');
+        String statusLine = (lineEnd >= 0 ? http.substring(0, lineEnd) : http).trim();
+        String[] status = statusLine.split(" ", 3);
+        if (status.length < 2 || !status[0].startsWith("HTTP/"))
+            throw new Exception("Invalid batch response status line: " + statusLine);
+
+        int bodyStart = headerEnd(http, 0);
+        String partBody = bodyStart >= 0 ? http.substring(bodyStart) : "";
+        if (partBody.endsWith(CRLF))
+            partBody = partBody.substring(0, partBody.length() - CRLF.length());
+        else if (partBody.endsWith("\n"))
+            partBody = partBody.substring(0, partBody.length() - 1);
+        return new Part(Integer.parseInt(status[1]), partBody);
+    }
+
+    /**
+     * Returns the index after the first empty line following the given offset, skipping a leading line break.
+     */
+    private static int headerEnd(String text, int from) {
+        int i = from;
+        if (text.startsWith(CRLF, i))
+            i += 2;
+        else if (text.startsWith("\n", i))
+            i += 1;
+        int crlf = text.indexOf(CRLF + CRLF, i);
+        int lf = text.indexOf("\n\n", i);
+        if (crlf >= 0 && (lf < 0 || crlf < lf))
+            return crlf + 4;
+        return lf >= 0 ? lf + 2 : -1;
+    }
+
+    private static String boundaryOf(String contentType) throws Exception {
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                String p = param.trim();
+                if (p.toLowerCase(Locale.ROOT).startsWith("boundary="))
+                    return p.substring("boundary=".length()).replace("\"", "");
+            }
+        }
+        throw new Exception("Batch response without multipart boundary: " + contentType);
+    }
+
+    /**
+     * Individual response of a batch request.
+     */
+    public static final class Part {
+        private final int statusCode;
+        private final String body;
+
+        Part(int statusCode, String body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        /**
+         * Returns the HTTP status code of the individual response.
+         *
+         * @return status code
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Returns the body of the individual response.
+         *
+         * @return response body
+         */
+        public String getBody() {
+            return body;
+        }
+    }
+}
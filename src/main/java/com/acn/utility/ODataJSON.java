@@ -0,0 +1,542 @@
+package com.acn.utility;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * ODataJSON is a utility class for reading OData JSON responses directly, without converting them to XML.
+ * <p>
+ * It understands the V2 shape ({@code {"d": {"results": [...]}}} or {@code {"d": {...}}} for a single entity)
+ * and the V4 shape ({@code {"value": [...]}} or the entity itself), as well as server-driven paging links
+ * ({@code __next} in V2, {@code @odata.nextLink} in V4).
+ * <p>
+ * The {@code stream*} and {@code writeXML} methods work on a {@link JSONStreamReader} instead of a parsed
+ * {@link JSONObject}, so arbitrarily large responses are processed with bounded memory.
+ */
+public class ODataJSON {
+
+    // member org.json.XML writes as the text of its parent element
+    private static final String CONTENT = "content";
+
+    /**
+     * Returns the entities of a response: the collection entries, or the single entity.
+     *
+     * @param response the parsed response
+     * @return list of entities
+     */
+    public static List<JSONObject> entities(JSONObject response) {
+        JSONObject container = response.optJSONObject("d");
+        JSONArray results;
+        if (container != null) {
+            results = container.optJSONArray("results");
+        } else {
+            container = response;
+            results = isEntityContext(response.optString("@odata.context", null)) ? null
+                    : response.optJSONArray("value");
+        }
+
+        List<JSONObject> entities = new ArrayList<>();
+        if (results == null) {
+            entities.add(container);
+        } else {
+            for (int i = 0; i < results.length(); i++) {
+                JSONObject entity = results.optJSONObject(i);
+                if (entity != null)
+                    entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * Extracts the requested fields of all entities of a response as rows.
+     *
+     * @param response   the parsed response
+     * @param outputList list of field names to extract
+     * @return list of maps representing rows
+     */
+    public static List<Map<String, String>> toRows(JSONObject response, List<String> outputList) {
+        List<Map<String, String>> rows = new ArrayList<>();
+        entities(response).forEach(entity -> rows.add(toRow(entity, outputList)));
+        return rows;
+    }
+
+    /**
+     * Extracts the requested fields of all entities of a response as one value list per field.
+     *
+     * @param response   the parsed response
+     * @param outputList list of field names to extract
+     * @return map of field names to lists of values
+     */
+    public static Map<String, List<String>> toColumns(JSONObject response, List<String> outputList) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        outputList.forEach(field -> result.put(field, new ArrayList<>()));
+        entities(response).forEach(entity ->
+                toRow(entity, outputList).forEach((field, value) -> result.get(field).add(value)));
+        return result;
+    }
+
+    /**
+     * Extracts the requested fields of an entity. A field not found as a direct property is searched depth-first
+     * in nested (e.g. expanded) objects, in key order; metadata objects ({@code __metadata}, {@code __deferred})
+     * are not searched. Missing fields and nulls are returned as empty strings.
+     *
+     * @param entity     the entity
+     * @param outputList list of field names to extract
+     * @return map of field name to value
+     */
+    public static Map<String, String> toRow(JSONObject entity, List<String> outputList) {
+        Map<String, String> row = new LinkedHashMap<>();
+        outputList.forEach(field -> {
+            Object value = find(entity, field);
+            row.put(field, value == null || value == JSONObject.NULL ? "" : value.toString());
+        });
+        return row;
+    }
+
+    private static Object find(Object node, String field) {
+        if (node instanceof JSONObject) {
+            JSONObject object = (JSONObject) node;
+            if (object.has(field))
+                return object.opt(field);
+            // JSONObject keys have no defined order, sorting them keeps the result stable
+            for (String key : new TreeSet<>(object.keySet())) {
+                if (isMetadata(key))
+                    continue;
+                Object value = object.opt(key);
+                if (value instanceof JSONObject || value instanceof JSONArray) {
+                    Object found = find(value, field);
+                    if (found != null)
+                        return found;
+                }
+            }
+        } else if (node instanceof JSONArray) {
+            JSONArray array = (JSONArray) node;
+            for (int i = 0; i < array.length(); i++) {
+                Object found = find(array.opt(i), field);
+                if (found != null)
+                    return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true for V2 metadata members such as {@code __metadata} and {@code __deferred}, whose {@code uri}
+     * and {@code type} properties are not entity fields.
+     */
+    private static boolean isMetadata(String name) {
+        return name.startsWith("__");
+    }
+
+    /**
+     * Returns true if a V4 {@code @odata.context} URL describes a single entity, whose properties may be named
+     * {@code value} without being a collection.
+     */
+    private static boolean isEntityContext(String context) {
+        return context != null && (context.endsWith("/$entity") || context.contains("/$entity?"));
+    }
+
+    /**
+     * Returns the absolute URL of the next page of a paged response.
+     *
+     * @param response   the parsed response
+     * @param currentUrl the URL the response was fetched from, used to resolve relative links
+     * @return the next page URL, or null on the last page
+     */
+    public static String nextLink(JSONObject response, String currentUrl) {
+        JSONObject d = response.optJSONObject("d");
+        String next = d != null ? d.optString("__next", null) : null;
+        if (next == null)
+            next = response.optString("@odata.nextLink", null);
+        if (next == null || next.isEmpty())
+            return null;
+        return URI.create(currentUrl).resolve(next).toString();
+    }
+
+    /**
+     * Streams the entities of a response to a consumer as rows, reading the JSON token by token and skipping
+     * everything not needed for the requested fields. Field resolution is the same as
+     * {@link #toRow(JSONObject, List)}: direct properties first, then nested objects, with object and array
+     * values returned as JSON text. Nested fields are taken in document order.
+     *
+     * @param reader      reader positioned at the start of the response
+     * @param outputList  list of field names to extract
+     * @param rowConsumer receives each row as soon as its entity has been read
+     * @return number of rows
+     * @throws IOException if reading fails or the JSON is malformed
+     */
+    public static long streamRows(JSONStreamReader reader, List<String> outputList,
+                                  Consumer<Map<String, String>> rowConsumer) throws IOException {
+        if (reader.next() != JSONStreamReader.Token.BEGIN_OBJECT)
+            throw new IOException("OData response is not a JSON object");
+
+        Set<String> fields = new HashSet<>(outputList);
+        Map<String, String> direct = new HashMap<>();
+        Map<String, String> nested = new HashMap<>();
+        long rows = streamContainer(reader, false, fields, outputList, rowConsumer, direct, nested);
+        if (rows < 0) {
+            rowConsumer.accept(row(direct, nested, outputList));
+            rows = 1;
+        }
+        if (reader.next() != JSONStreamReader.Token.END_DOCUMENT)
+            throw new IOException("Unexpected content after OData response");
+        return rows;
+    }
+
+    /**
+     * Reads the members of a response object ({@code d} in V2, the top level in V4). Collection entries
+     * ({@code d.results} in V2, {@code value} in V4 unless the context is a single entity) are streamed; other
+     * members are collected in case the container is a single entity.
+     *
+     * @return number of streamed rows, or -1 if the container holds no collection
+     */
+    private static long streamContainer(JSONStreamReader reader, boolean v2, Set<String> fields,
+                                        List<String> outputList, Consumer<Map<String, String>> rowConsumer,
+                                        Map<String, String> direct, Map<String, String> nested) throws IOException {
+        long rows = -1;
+        boolean entityContext = false;
+        JSONStreamReader.Token token;
+        while ((token = reader.next()) != JSONStreamReader.Token.END_OBJECT) {
+            if (token != JSONStreamReader.Token.NAME)
+                throw new IOException("Malformed OData response");
+            String name = reader.getText();
+            JSONStreamReader.Token value = reader.peek();
+
+            if (!v2 && name.equals("d") && value == JSONStreamReader.Token.BEGIN_OBJECT) {
+                reader.next();
+                rows = Math.max(rows, streamContainer(reader, true, fields, outputList, rowConsumer, direct, nested));
+            } else if (name.equals(v2 ? "results" : "value") && !entityContext
+                    && value == JSONStreamReader.Token.BEGIN_ARRAY) {
+                reader.next();
+                rows = Math.max(rows, 0);
+                while (reader.peek() != JSONStreamReader.Token.END_ARRAY) {
+                    if (reader.next() != JSONStreamReader.Token.BEGIN_OBJECT)
+                        throw new IOException("OData collection entry is not an object");
+                    rowConsumer.accept(streamEntityRow(reader, fields, outputList));
+                    rows++;
+                }
+                reader.next();
+            } else {
+                if (!v2 && name.equals("@odata.context") && value == JSONStreamReader.Token.STRING) {
+                    reader.next();
+                    entityContext = isEntityContext(reader.getText());
+                    if (fields.contains(name))
+                        direct.putIfAbsent(name, reader.getText());
+                    continue;
+                }
+                collectMember(reader, name, fields, direct, nested);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Reads one collection entry; the entry's BEGIN_OBJECT token has already been consumed.
+     */
+    private static Map<String, String> streamEntityRow(JSONStreamReader reader, Set<String> fields,
+                                                       List<String> outputList) throws IOException {
+        Map<String, String> direct = new HashMap<>();
+        Map<String, String> nested = new HashMap<>();
+        JSONStreamReader.Token token;
+        while ((token = reader.next()) != JSONStreamReader.Token.END_OBJECT) {
+            if (token != JSONStreamReader.Token.NAME)
+                throw new IOException("Malformed OData entity");
+            collectMember(reader, reader.getText(), fields, direct, nested);
+        }
+        return row(direct, nested, outputList);
+    }
+
+    private static void collectMember(JSONStreamReader reader, String name, Set<String> fields,
+                                      Map<String, String> direct, Map<String, String> nested) throws IOException {
+        JSONStreamReader.Token value = reader.peek();
+        if (value == JSONStreamReader.Token.BEGIN_OBJECT || value == JSONStreamReader.Token.BEGIN_ARRAY) {
+            if (fields.isEmpty()) {
+                reader.skipValue();
+                return;
+            }
+            List<StringBuilder> captures = new ArrayList<>();
+            StringBuilder json = fields.contains(name) && !direct.containsKey(name) ? new StringBuilder() : null;
+            if (json != null)
+                captures.add(json);
+            collectNested(reader, null, fields, nested, captures, !isMetadata(name));
+            if (json != null)
+                direct.put(name, json.toString());
+        } else {
+            reader.next();
+            if (fields.contains(name))
+                direct.putIfAbsent(name, value == JSONStreamReader.Token.NULL ? "" : reader.getText());
+        }
+    }
+
+    /**
+     * Reads the next value, collecting the first occurrence of each requested field inside it in document order
+     * unless {@code collect} is false (metadata). Requested fields with object or array values get their JSON
+     * text. The value's JSON text is also appended to all captures, i.e. to the requested values it is part of.
+     */
+    private static void collectNested(JSONStreamReader reader, String name, Set<String> fields,
+                                      Map<String, String> nested, List<StringBuilder> captures, boolean collect)
+            throws IOException {
+        if (!collect && captures.isEmpty()) {
+            reader.skipValue();
+            return;
+        }
+        JSONStreamReader.Token token = reader.next();
+        boolean requested = collect && name != null && fields.contains(name) && !nested.containsKey(name);
+        StringBuilder json = null;
+        if (requested && (token == JSONStreamReader.Token.BEGIN_OBJECT || token == JSONStreamReader.Token.BEGIN_ARRAY)) {
+            // reserve the field, so occurrences inside this value do not take precedence
+            nested.put(name, "");
+            json = new StringBuilder();
+            captures.add(json);
+        }
+
+        switch (token) {
+            case BEGIN_OBJECT:
+                append(captures, "{");
+                while (reader.peek() != JSONStreamReader.Token.END_OBJECT) {
+                    if (reader.next() != JSONStreamReader.Token.NAME)
+                        throw new IOException("Malformed JSON object");
+                    String member = reader.getText();
+                    append(captures, JSONObject.quote(member) + ":");
+                    collectNested(reader, member, fields, nested, captures, collect && !isMetadata(member));
+                    if (reader.peek() != JSONStreamReader.Token.END_OBJECT)
+                        append(captures, ",");
+                }
+                reader.next();
+                append(captures, "}");
+                break;
+            case BEGIN_ARRAY:
+                append(captures, "[");
+                while (reader.peek() != JSONStreamReader.Token.END_ARRAY) {
+                    collectNested(reader, null, fields, nested, captures, collect);
+                    if (reader.peek() != JSONStreamReader.Token.END_ARRAY)
+                        append(captures, ",");
+                }
+                reader.next();
+                append(captures, "]");
+                break;
+            case STRING:
+                append(captures, JSONObject.quote(reader.getText()));
+                if (requested)
+                    nested.put(name, reader.getText());
+                break;
+            case NUMBER:
+            case BOOLEAN:
+                append(captures, reader.getText());
+                if (requested)
+                    nested.put(name, reader.getText());
+                break;
+            case NULL:
+                append(captures, "null");
+                if (requested)
+                    nested.put(name, "");
+                break;
+            default:
+                throw new IOException("Malformed JSON value");
+        }
+
+        if (json != null) {
+            captures.remove(captures.size() - 1);
+            nested.put(name, json.toString());
+        }
+    }
+
+    private static void append(List<StringBuilder> captures, String text) {
+        for (StringBuilder capture : captures)
+            capture.append(text);
+    }
+
+    private static Map<String, String> row(Map<String, String> direct, Map<String, String> nested,
+                                           List<String> outputList) {
+        Map<String, String> row = new LinkedHashMap<>();
+        outputList.forEach(field -> {
+            String value = direct.get(field);
+            if (value == null)
+                value = nested.get(field);
+            row.put(field, value != null ? value : "");
+        });
+        return row;
+    }
+
+    /**
+     * Converts a JSON response to XML token by token, producing the same element structure as
+     * {@code org.json.XML.toString(new JSONObject(json))}: members become elements, array entries repeat the
+     * member element, and nested arrays are wrapped in {@code array} elements. Members keep document order.
+     * A {@code content} member is written as the text of its parent element, array entries separated by line
+     * breaks, and characters that are not allowed in XML are written as character references.
+     *
+     * @param reader reader positioned at the start of a JSON object
+     * @param out    receives the XML
+     * @throws IOException if reading or writing fails, or the JSON is malformed
+     */
+    public static void writeXML(JSONStreamReader reader, Writer out) throws IOException {
+        if (reader.next() != JSONStreamReader.Token.BEGIN_OBJECT)
+            throw new IOException("JSON response is not an object");
+        writeMembers(reader, out);
+        if (reader.next() != JSONStreamReader.Token.END_DOCUMENT)
+            throw new IOException("Unexpected content after JSON response");
+        out.flush();
+    }
+
+    private static void writeMembers(JSONStreamReader reader, Writer out) throws IOException {
+        JSONStreamReader.Token token;
+        while ((token = reader.next()) != JSONStreamReader.Token.END_OBJECT) {
+            if (token != JSONStreamReader.Token.NAME)
+                throw new IOException("Malformed JSON object");
+            String name = reader.getText();
+            if (name.equals(CONTENT)) {
+                writeContent(reader, out);
+            } else if (reader.peek() == JSONStreamReader.Token.BEGIN_ARRAY) {
+                reader.next();
+                while (reader.peek() != JSONStreamReader.Token.END_ARRAY) {
+                    if (reader.peek() == JSONStreamReader.Token.BEGIN_ARRAY) {
+                        out.write('<' + name + '>');
+                        writeValue(reader, "array", out);
+                        out.write("</" + name + '>');
+                    } else {
+                        writeValue(reader, name, out);
+                    }
+                }
+                reader.next();
+            } else {
+                writeValue(reader, name, out);
+            }
+        }
+    }
+
+    private static void writeContent(JSONStreamReader reader, Writer out) throws IOException {
+        if (reader.peek() != JSONStreamReader.Token.BEGIN_ARRAY) {
+            escape(contentText(reader), out);
+            return;
+        }
+        reader.next();
+        for (int i = 0; reader.peek() != JSONStreamReader.Token.END_ARRAY; i++) {
+            if (i > 0)
+                out.write('\n');
+            escape(contentText(reader), out);
+        }
+        reader.next();
+    }
+
+    // text of a content value: scalars as they are, objects and arrays as compact JSON
+    private static String contentText(JSONStreamReader reader) throws IOException {
+        JSONStreamReader.Token token = reader.peek();
+        if (token != JSONStreamReader.Token.BEGIN_OBJECT && token != JSONStreamReader.Token.BEGIN_ARRAY) {
+            reader.next();
+            return token == JSONStreamReader.Token.NULL ? "null" : reader.getText();
+        }
+        StringBuilder sb = new StringBuilder();
+        appendJSON(reader, sb);
+        return sb.toString();
+    }
+
+    private static void appendJSON(JSONStreamReader reader, StringBuilder sb) throws IOException {
+        JSONStreamReader.Token token = reader.next();
+        switch (token) {
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                boolean object = token == JSONStreamReader.Token.BEGIN_OBJECT;
+                JSONStreamReader.Token end = object ? JSONStreamReader.Token.END_OBJECT
+                        : JSONStreamReader.Token.END_ARRAY;
+                sb.append(object ? '{' : '[');
+                for (int i = 0; reader.peek() != end; i++) {
+                    if (i > 0)
+                        sb.append(',');
+                    if (object) {
+                        if (reader.next() != JSONStreamReader.Token.NAME)
+                            throw new IOException("Malformed JSON object");
+                        sb.append(JSONObject.quote(reader.getText())).append(':');
+                    }
+                    appendJSON(reader, sb);
+                }
+                reader.next();
+                sb.append(object ? '}' : ']');
+                break;
+            case STRING:
+                sb.append(JSONObject.quote(reader.getText()));
+                break;
+            case NUMBER:
+            case BOOLEAN:
+                sb.append(reader.getText());
+                break;
+            case NULL:
+                sb.append("null");
+                break;
+            default:
+                throw new IOException("Malformed JSON value");
+        }
+    }
+
+    private static void writeValue(JSONStreamReader reader, String tag, Writer out) throws IOException {
+        JSONStreamReader.Token token = reader.next();
+        switch (token) {
+            case BEGIN_OBJECT:
+                out.write('<' + tag + '>');
+                writeMembers(reader, out);
+                out.write("</" + tag + '>');
+                break;
+            case BEGIN_ARRAY:
+                while (reader.peek() != JSONStreamReader.Token.END_ARRAY)
+                    writeValue(reader, tag, out);
+                reader.next();
+                break;
+            case NULL:
+                out.write('<' + tag + ">null</" + tag + '>');
+                break;
+            case STRING:
+            case NUMBER:
+            case BOOLEAN:
+                String text = reader.getText();
+                if (text.isEmpty()) {
+                    out.write('<' + tag + "/>");
+                } else {
+                    out.write('<' + tag + '>');
+                    escape(text, out);
+                    out.write("</" + tag + '>');
+                }
+                break;
+            default:
+                throw new IOException("Malformed JSON value");
+        }
+    }
+
+    // same escaping as org.json.XML.escape
+    private static void escape(String text, Writer out) throws IOException {
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            switch (cp) {
+                case '&': out.write("&amp;"); break;
+                case '<': out.write("&lt;"); break;
+                case '>': out.write("&gt;"); break;
+                case '"': out.write("&quot;"); break;
+                case '\'': out.write("&apos;"); break;
+                default:
+                    if (mustEscape(cp))
+                        out.write("&#x" + Integer.toHexString(cp) + ';');
+                    else
+                        out.write(Character.toChars(cp));
+            }
+        }
+    }
+
+    private static boolean mustEscape(int cp) {
+        return (Character.isISOControl(cp) && cp != 0x9 && cp != 0xA && cp != 0xD)
+                || !((cp >= 0x20 && cp <= 0xD7FF) || (cp >= 0xE000 && cp <= 0xFFFD)
+                || (cp >= 0x10000 && cp <= 0x10FFFF));
+    }
+}
@@ -0,0 +1,194 @@
+package com.acn.utility;
+
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * ODataQuery is a utility class for building OData query URLs that push the projection and the key filter down
+ * to the service, so only the requested properties of the matching entities are transferred.
+ */
+public class ODataQuery {
+
+    private static final DateTimeFormatter DATETIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final DateTimeFormatter DATETIMEOFFSET = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    /**
+     * OData protocol version of a service, which decides the syntax of typed literals in {@code $filter}.
+     */
+    public enum Version {
+        /** OData V2: prefixed and suffixed literals, e.g. {@code datetime'...'}, {@code guid'...'}, {@code 12L} */
+        V2,
+        /** OData V4: bare literals, e.g. {@code 2024-01-31T10:15:00Z}, {@code 0f8fad5b-...}, {@code 12} */
+        V4;
+
+        /**
+         * Returns the version announced by the {@code OData-Version} response header of a service.
+         *
+         * @param odataVersionHeader header value, or null when the service does not send it (V2 services send
+         *                           {@code DataServiceVersion} instead)
+         * @return V4 for {@code 4.0} and later, V2 otherwise
+         */
+        public static Version of(String odataVersionHeader) {
+            return odataVersionHeader != null && odataVersionHeader.trim().startsWith("4") ? V4 : V2;
+        }
+    }
+
+    /**
+     * Builds a query URL with {@code $select}, {@code $filter} and {@code $top} options, with OData V2 literals.
+     *
+     * @param serviceRoot   the service root URL
+     * @param entitySet     the entity set name, e.g. {@code A_Product}
+     * @param keyPredicates property-value pairs combined with {@code and} into {@code $filter}, or null
+     * @param outputList    properties to select, or null to select all
+     * @param top           maximum number of entities, 0 for no limit
+     * @return the query URL
+     */
+    public static String buildUrl(String serviceRoot, String entitySet, Map<String, ?> keyPredicates,
+                                  List<String> outputList, int top) {
+        return buildUrl(serviceRoot, entitySet, keyPredicates, outputList, top, Version.V2);
+    }
+
+    /**
+     * Builds a query URL with {@code $select}, {@code $filter} and {@code $top} options.
+     *
+     * @param serviceRoot   the service root URL
+     * @param entitySet     the entity set name, e.g. {@code A_Product}
+     * @param keyPredicates property-value pairs combined with {@code and} into {@code $filter}, or null
+     * @param outputList    properties to select, or null to select all
+     * @param top           maximum number of entities, 0 for no limit
+     * @param version       OData version of the service, see {@link #literal(Object, Version)}
+     * @return the query URL
+     */
+    public static String buildUrl(String serviceRoot, String entitySet, Map<String, ?> keyPredicates,
+                                  List<String> outputList, int top, Version version) {
+        StringBuilder url = new StringBuilder(serviceRoot);
+        if (!serviceRoot.endsWith("/"))
+            url.append('/');
+        url.append(entitySet);
+
+        StringJoiner options = new StringJoiner("&", "?", "").setEmptyValue("");
+        if (outputList != null && !outputList.isEmpty())
+            options.add("$select=" + encode(String.join(",", outputList)));
+        String filter = filter(keyPredicates, version);
+        if (!filter.isEmpty())
+            options.add("$filter=" + encode(filter));
+        if (top > 0)
+            options.add("$top=" + top);
+        return url.append(options).toString();
+    }
+
+    /**
+     * Builds a {@code $filter} expression comparing each property with its value, with OData V2 literals.
+     *
+     * @param keyPredicates property-value pairs, or null
+     * @return filter expression, empty when there are no predicates
+     */
+    public static String filter(Map<String, ?> keyPredicates) {
+        return filter(keyPredicates, Version.V2);
+    }
+
+    /**
+     * Builds a {@code $filter} expression comparing each property with its value.
+     *
+     * @param keyPredicates property-value pairs, or null
+     * @param version       OData version of the service, see {@link #literal(Object, Version)}
+     * @return filter expression, empty when there are no predicates
+     */
+    public static String filter(Map<String, ?> keyPredicates, Version version) {
+        StringJoiner filter = new StringJoiner(" and ");
+        if (keyPredicates != null)
+            keyPredicates.forEach((property, value) -> filter.add(property + " eq " + literal(value, version)));
+        return filter.toString();
+    }
+
+    /**
+     * Formats a value as OData V2 literal, see {@link #literal(Object, Version)}.
+     *
+     * @param value the value
+     * @return OData literal
+     */
+    public static String literal(Object value) {
+        return literal(value, Version.V2);
+    }
+
+    /**
+     * Formats a value as OData literal, typed by its Java type. For V2:
+     * <ul>
+     * <li>{@code LocalDateTime}, {@code LocalDate} and {@code Date} as {@code datetime'2024-01-31T10:15:00'}
+     * ({@code java.util.Date} in UTC)</li>
+     * <li>{@code OffsetDateTime}, {@code ZonedDateTime} and {@code Instant} as
+     * {@code datetimeoffset'2024-01-31T10:15:00Z'}</li>
+     * <li>{@code UUID} as {@code guid'...'}</li>
+     * <li>{@code BigDecimal} as {@code 12.50M} and {@code Long} as {@code 12L}</li>
+     * </ul>
+     * For V4, which rejects these prefixes and suffixes:
+     * <ul>
+     * <li>{@code LocalDate} as {@code 2024-01-31}</li>
+     * <li>all other date-times as {@code 2024-01-31T10:15:00Z}, {@code LocalDateTime} taken as UTC</li>
+     * <li>{@code UUID} as bare GUID, {@code BigDecimal} as {@code 12.50} and {@code Long} as {@code 12}</li>
+     * </ul>
+     * Other numbers and booleans are written as is and everything else as quoted string. Date and time values
+     * are written with at most millisecond precision.
+     *
+     * @param value   the value
+     * @param version OData version of the service
+     * @return OData literal
+     */
+    public static String literal(Object value, Version version) {
+        if (value == null)
+            return "null";
+        boolean v4 = version == Version.V4;
+        if (value instanceof BigDecimal)
+            return ((BigDecimal) value).toPlainString() + (v4 ? "" : "M");
+        if (value instanceof Long)
+            return value + (v4 ? "" : "L");
+        if (value instanceof Number || value instanceof Boolean)
+            return value.toString();
+        if (value instanceof UUID)
+            return v4 ? value.toString() : "guid'" + value + "'";
+        if (value instanceof LocalDateTime) {
+            LocalDateTime dateTime = ((LocalDateTime) value).truncatedTo(ChronoUnit.MILLIS);
+            return v4 ? literal(dateTime.atOffset(ZoneOffset.UTC), version)
+                    : "datetime'" + DATETIME.format(dateTime) + "'";
+        }
+        if (value instanceof LocalDate || value instanceof java.sql.Date)
+            return v4 ? toLocalDate(value).toString() : literal(toLocalDate(value).atStartOfDay(), version);
+        if (value instanceof java.sql.Timestamp && !v4)
+            return literal(((java.sql.Timestamp) value).toLocalDateTime(), version);
+        if (value instanceof Date)
+            return v4 ? literal(((Date) value).toInstant(), version)
+                    : literal(LocalDateTime.ofInstant(((Date) value).toInstant(), ZoneOffset.UTC), version);
+        if (value instanceof ZonedDateTime)
+            return literal(((ZonedDateTime) value).toOffsetDateTime(), version);
+        if (value instanceof Instant)
+            return literal(((Instant) value).atOffset(ZoneOffset.UTC), version);
+        if (value instanceof OffsetDateTime) {
+            String dateTime = DATETIMEOFFSET.format(((OffsetDateTime) value).truncatedTo(ChronoUnit.MILLIS));
+            return v4 ? dateTime : "datetimeoffset'" + dateTime + "'";
+        }
+        return "'" + value.toString().replace("'", "''") + "'";
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        // java.sql.Date does not support toInstant()
+        return value instanceof java.sql.Date ? ((java.sql.Date) value).toLocalDate() : (LocalDate) value;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,177 @@
+package com.acn.utility;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sap.conn.jco.JCoFunction;
+import com.sap.conn.jco.JCoFunctionTemplate;
+import com.sap.conn.jco.JCoListMetaData;
+import com.sap.conn.jco.JCoMetaData;
+
+/**
+ * RFCFunctionPlan is the compiled parameter mapping of an RFC function module.
+ * <p>
+ * It is built once from the {@link JCoFunctionTemplate} and resolves import parameter, table parameter and
+ * table field names to their indexes, so requests can be mapped to a {@link JCoFunction} by index instead of
+ * resolving each name through the JCo metadata. Plans are immutable and can be shared between threads.
+ */
+public class RFCFunctionPlan {
+
+    private final JCoFunctionTemplate template;
+    private final Map<String, Integer> importIndexes;
+    private final Map<String, Integer> tableIndexes;
+    private final String[] exportNames;
+    private final String[] tableNames;
+    private final String[][] tableFieldNames;
+    private final Map<String, Integer>[] tableFieldIndexes;
+
+    /**
+     * Compiles the mapping plan of a function module.
+     *
+     * @param template the function template
+     */
+    @SuppressWarnings("unchecked")
+    public RFCFunctionPlan(JCoFunctionTemplate template) {
+        this.template = template;
+        this.importIndexes = indexes(template.getImportParameterList());
+        this.tableIndexes = indexes(template.getTableParameterList());
+        this.exportNames = names(template.getExportParameterList());
+
+        JCoListMetaData tables = template.getTableParameterList();
+        this.tableNames = names(tables);
+        this.tableFieldNames = new String[tableNames.length][];
+        this.tableFieldIndexes = new Map[tableNames.length];
+        for (int i = 0; i < tableNames.length; i++) {
+            JCoMetaData row = tables.getRecordMetaData(i);
+            tableFieldNames[i] = names(row);
+            tableFieldIndexes[i] = indexes(row);
+        }
+    }
+
+    private static Map<String, Integer> indexes(JCoMetaData metaData) {
+        if (metaData == null)
+            return Collections.emptyMap();
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < metaData.getFieldCount(); i++)
+            indexes.put(metaData.getName(i), i);
+        return Collections.unmodifiableMap(indexes);
+    }
+
+    private static String[] names(JCoMetaData metaData) {
+        if (metaData == null)
+            return new String[0];
+        String[] names = new String[metaData.getFieldCount()];
+        for (int i = 0; i < names.length; i++)
+            names[i] = metaData.getName(i);
+        return names;
+    }
+
+    /**
+     * Creates a new function instance from the cached template, without a repository lookup.
+     *
+     * @return new function
+     */
+    public JCoFunction newFunction() {
+        return template.getFunction();
+    }
+
+    /**
+     * Returns the function module name.
+     *
+     * @return function name
+     */
+    public String getName() {
+        return template.getName();
+    }
+
+    /**
+     * Returns the index of an import parameter.
+     *
+     * @param name parameter name
+     * @return parameter index, or -1 if the function has no such import parameter
+     */
+    public int importIndex(String name) {
+        return importIndexes.getOrDefault(name, -1);
+    }
+
+    /**
+     * Returns the index of a table parameter.
+     *
+     * @param name parameter name
+     * @return parameter index, or -1 if the function has no such table parameter
+     */
+    public int tableIndex(String name) {
+        return tableIndexes.getOrDefault(name, -1);
+    }
+
+    /**
+     * Returns the index of a field within the rows of a table parameter.
+     *
+     * @param tableIndex the table parameter index
+     * @param fieldName  the field name
+     * @return field index, or -1 if the table has no such field
+     */
+    public int tableFieldIndex(int tableIndex, String fieldName) {
+        return tableFieldIndexes[tableIndex].getOrDefault(fieldName, -1);
+    }
+
+    /**
+     * Returns the number of export parameters.
+     *
+     * @return export parameter count
+     */
+    public int getExportCount() {
+        return exportNames.length;
+    }
+
+    /**
+     * Returns the number of table parameters.
+     *
+     * @return table parameter count
+     */
+    public int getTableCount() {
+        return tableNames.length;
+    }
+
+    /**
+     * Returns the name of an export parameter.
+     *
+     * @param index the export parameter index
+     * @return export parameter name
+     */
+    public String exportName(int index) {
+        return exportNames[index];
+    }
+
+    /**
+     * Returns the name of a table parameter.
+     *
+     * @param index the table parameter index
+     * @return table parameter name
+     */
+    public String tableName(int index) {
+        return tableNames[index];
+    }
+
+    /**
+     * Returns the name of a table field.
+     *
+     * @param tableIndex the table parameter index
+     * @param fieldIndex the field index
+     * @return field name
+     */
+    public String tableFieldName(int tableIndex, int fieldIndex) {
+        return tableFieldNames[tableIndex][fieldIndex];
+    }
+
+    /**
+     * Returns the number of fields of a table parameter.
+     *
+     * @param tableIndex the table parameter index
+     * @return field count
+     */
+    public int tableFieldCount(int tableIndex) {
+        return tableFieldNames[tableIndex].length;
+    }
+}
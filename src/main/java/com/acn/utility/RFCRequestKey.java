@@ -0,0 +1,122 @@
+package com.acn.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * RFCRequestKey builds cache keys for RFC calls from a canonical form of the function name and its import and
+ * table parameters.
+ * <p>
+ * Parameters and row fields are sorted by name, so requests differing only in element or map order share a key;
+ * table rows keep their order. The canonical form is hashed with SHA-256, so keys stay small for large table
+ * parameters.
+ */
+public class RFCRequestKey {
+
+    /**
+     * Returns the key of a call with parameters given as Java values.
+     *
+     * @param functionName the function module name
+     * @param parameters   import and table parameter values by parameter name, or null
+     * @return the cache key
+     */
+    public static String forParameters(String functionName, Map<String, ?> parameters) {
+        return hash(functionName, parameters != null ? parameters : Map.of());
+    }
+
+    /**
+     * Returns the key of an XML request, interpreting its elements the same way as
+     * {@code RFCLookup.getResponse}: elements with child elements are tables of {@code table} rows, all other
+     * elements are import values. The rows of a table given in several elements are appended in element order,
+     * and of an import value given more than once the last one counts.
+     *
+     * @param requestRoot the root element of the request, named after the function module
+     * @return the cache key
+     */
+    public static String forRequest(Element requestRoot) {
+        Map<String, Object> imports = new TreeMap<>();
+        Map<String, List<Map<String, Object>>> tables = new TreeMap<>();
+        NodeList nl = requestRoot.getChildNodes();
+        for (int i = 0; i < nl.getLength(); i++) {
+            Node node = nl.item(i);
+            if (node.getNodeType() != Node.ELEMENT_NODE)
+                continue;
+            if (node.hasChildNodes() && node.getChildNodes().getLength() > 1) {
+                List<Map<String, Object>> rows = tables.computeIfAbsent(node.getNodeName(), n -> new ArrayList<>());
+                NodeList rowNodes = node.getChildNodes();
+                for (int r = 0; r < rowNodes.getLength(); r++) {
+                    Node row = rowNodes.item(r);
+                    if (row.getNodeType() != Node.ELEMENT_NODE || !row.getNodeName().equalsIgnoreCase("table"))
+                        continue;
+                    Map<String, Object> fields = new TreeMap<>();
+                    NodeList fieldNodes = row.getChildNodes();
+                    for (int f = 0; f < fieldNodes.getLength(); f++) {
+                        Node field = fieldNodes.item(f);
+                        if (field.getNodeType() == Node.ELEMENT_NODE)
+                            fields.put(field.getNodeName(), field.getTextContent());
+                    }
+                    rows.add(fields);
+                }
+            } else {
+                imports.put(node.getNodeName(), node.getTextContent());
+            }
+        }
+        // tables and imports are keyed apart, as a request may use the same name for both
+        return hash(requestRoot.getNodeName(), Map.of("imports", imports, "tables", tables));
+    }
+
+    private static String hash(String functionName, Map<String, ?> parameters) {
+        StringBuilder canonical = new StringBuilder();
+        append(canonical, parameters);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return ResultCache.key(functionName, Base64.getEncoder().encodeToString(hash));
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Appends the canonical form of a value: maps sorted by key, lists in order, scalars length-prefixed so that
+     * separators inside values cannot make different requests look equal. Binary values are written as Base64, as
+     * {@code byte[].toString()} is the identity, and dates as epoch milliseconds, as {@code Date.toString()}
+     * drops the milliseconds.
+     */
+    private static void append(StringBuilder sb, Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> sorted.put(String.valueOf(k), v));
+            sb.append('{');
+            sorted.forEach((k, v) -> {
+                append(sb, k);
+                append(sb, v);
+            });
+            sb.append('}');
+        } else if (value instanceof List) {
+            sb.append('[');
+            for (Object element : (List<?>) value)
+                append(sb, element);
+            sb.append(']');
+        } else {
+            String text;
+            if (value instanceof byte[])
+                text = Base64.getEncoder().encodeToString((byte[]) value);
+            else if (value instanceof Date)
+                text = Long.toString(((Date) value).getTime());
+            else
+                text = value != null ? value.toString() : "";
+            sb.append(text.length()).append(':').append(text);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.acn.utility;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * RFCResult holds the export parameters and table parameters of an RFC call as plain Java structures.
+ * <p>
+ * Values keep the Java types JCo maps the ABAP types to (e.g. {@code String}, {@code Integer},
+ * {@code BigDecimal}, {@code Date}); structures are represented as maps and tables as lists of maps, both
+ * keyed by field name in field order.
+ * <p>
+ * Results are immutable, including nested structures and tables, so they can be shared through a cache. The
+ * mutable values JCo returns for date, time and raw fields ({@code Date} and {@code byte[]}) are copied when the
+ * result is constructed and each time they are read.
+ */
+public class RFCResult {
+
+    private final Map<String, Object> exports;
+    private final Map<String, List<Map<String, Object>>> tables;
+
+    /**
+     * Constructs an RFCResult from copies of the given parameters; the arguments are left unchanged.
+     *
+     * @param exports export parameter values by parameter name
+     * @param tables  table parameter rows by parameter name
+     */
+    @SuppressWarnings("unchecked")
+    public RFCResult(Map<String, Object> exports, Map<String, List<Map<String, Object>>> tables) {
+        this.exports = (Map<String, Object>) freeze(exports);
+        this.tables = (Map<String, List<Map<String, Object>>>) freeze(tables);
+    }
+
+    /**
+     * Returns a read-only deep copy of maps and lists, keeping their order, with copies of {@code Date} and
+     * {@code byte[]} values; other values are immutable and returned as is.
+     */
+    private static Object freeze(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> copy.put(k, freeze(v)));
+            return new FrozenMap(copy);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value)
+                copy.add(freeze(element));
+            return new FrozenList(copy);
+        }
+        return copyMutable(value);
+    }
+
+    /**
+     * Returns a copy of {@code Date} and {@code byte[]} values, so callers cannot change a shared result.
+     */
+    private static Object copyMutable(Object value) {
+        if (value instanceof Date)
+            return ((Date) value).clone();
+        if (value instanceof byte[])
+            return ((byte[]) value).clone();
+        return value;
+    }
+
+    /**
+     * Read-only map returning copies of its mutable values.
+     */
+    private static final class FrozenMap extends AbstractMap<Object, Object> {
+        private final Map<Object, Object> values;
+
+        FrozenMap(Map<Object, Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return copyMutable(values.get(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            return new AbstractSet<Entry<Object, Object>>() {
+                @Override
+                public Iterator<Entry<Object, Object>> iterator() {
+                    Iterator<Entry<Object, Object>> entries = values.entrySet().iterator();
+                    return new Iterator<Entry<Object, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Object, Object> next() {
+                            Entry<Object, Object> entry = entries.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), copyMutable(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Read-only list returning copies of its mutable elements.
+     */
+    private static final class FrozenList extends AbstractList<Object> implements RandomAccess {
+        private final List<Object> elements;
+
+        FrozenList(List<Object> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public Object get(int index) {
+            return copyMutable(elements.get(index));
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
+        }
+    }
+
+    /**
+     * Returns all export parameters.
+     *
+     * @return export parameter values by parameter name
+     */
+    public Map<String, Object> getExports() {
+        return exports;
+    }
+
+    /**
+     * Returns the value of an export parameter.
+     *
+     * @param name parameter name
+     * @return parameter value, or null if the function has no such export parameter
+     */
+    public Object getExport(String name) {
+        return exports.get(name);
+    }
+
+    /**
+     * Returns the value of an export parameter as string.
+     *
+     * @param name parameter name
+     * @return parameter value as string, or null if absent
+     */
+    public String getExportString(String name) {
+        Object value = exports.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Returns all table parameters.
+     *
+     * @return table parameter rows by parameter name
+     */
+    public Map<String, List<Map<String, Object>>> getTables() {
+        return tables;
+    }
+
+    /**
+     * Returns the rows of a table parameter.
+     *
+     * @param name parameter name
+     * @return rows of the table, empty if the function has no such table parameter
+     */
+    public List<Map<String, Object>> getTable(String name) {
+        return tables.getOrDefault(name, Collections.emptyList());
+    }
+
+    @Override
+    public String toString() {
+        return "RFCResult[exports=" + exports + ", tables=" + tables + "]";
+    }
+}
@@ -0,0 +1,20 @@
+package com.acn.utility;
+
+import java.util.Map;
+
+/**
+ * RFCRowHandler receives the rows of RFC table parameters one at a time while the tables are read, so large
+ * results do not have to be collected in memory.
+ */
+public interface RFCRowHandler {
+
+    /**
+     * Handles one table row.
+     *
+     * @param table    the table parameter name
+     * @param rowIndex the index of the row within the table
+     * @param row      field values by field name, in field order
+     * @throws Exception to stop reading the remaining rows
+     */
+    void row(String table, int rowIndex, Map<String, Object> row) throws Exception;
+}
@@ -0,0 +1,114 @@
+package com.acn.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Predicate;
+
+/**
+ * ResultCache is the extension point used by the lookup classes to cache results of repeated
+ * lookups (same endpoint or statement, same credentials) within and across message mappings.
+ * <p>
+ * {@link LRUResultCache} is the default implementation; any other implementation can be plugged
+ * into a lookup via its {@code setResultCache} method.
+ *
+ * @param <V> the type of the cached result
+ */
+public interface ResultCache<V> {
+
+    /**
+     * Loads a result on a cache miss.
+     *
+     * @param <V> the type of the loaded result
+     */
+    @FunctionalInterface
+    interface Loader<V> {
+        V load() throws Exception;
+    }
+
+    /**
+     * Returns the cached result for the key, or loads and caches it on a miss.
+     *
+     * @param key     the cache key, see {@link #key(Object...)}
+     * @param loader  loader invoked on a cache miss
+     * @param isEmpty predicate identifying empty results (eligible only for negative caching)
+     * @return the cached or freshly loaded result
+     * @throws Exception if the loader fails, or a cached negative result is hit
+     */
+    V getOrLoad(String key, Loader<V> loader, Predicate<V> isEmpty) throws Exception;
+
+    /**
+     * Returns the cached result for the key, or loads and caches it on a miss.
+     * Only {@code null} results are treated as empty.
+     *
+     * @param key    the cache key
+     * @param loader loader invoked on a cache miss
+     * @return the cached or freshly loaded result
+     * @throws Exception if the loader fails, or a cached negative result is hit
+     */
+    default V getOrLoad(String key, Loader<V> loader) throws Exception {
+        return getOrLoad(key, loader, v -> v == null);
+    }
+
+    /**
+     * Removes a single entry from the cache.
+     *
+     * @param key the cache key
+     */
+    void invalidate(String key);
+
+    /**
+     * Removes all entries from the cache.
+     */
+    void clear();
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return hit count
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of lookups that had to be loaded.
+     *
+     * @return miss count
+     */
+    long getMissCount();
+
+    /**
+     * Builds a cache key from its parts.
+     *
+     * @param parts key parts, e.g. lookup type, credentials identity and endpoint
+     * @return the cache key
+     */
+    static String key(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (Object part : parts) {
+            if (sb.length() > 0)
+                sb.append('\u0001');
+            sb.append(part);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a stable identity for a pair of credentials without keeping the password in the key.
+     *
+     * @param user     the user name, may be null
+     * @param password the password, may be null
+     * @return user name followed by a hash of the credentials
+     */
+    static String credentialsIdentity(String user, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(String.valueOf(user)).append('#');
+            for (int i = 0; i < 8; i++) {
+                sb.append(String.format("%02x", hash[i]));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.acn.utility;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SingleFlight coalesces concurrent identical calls: while a call for a key is in flight, other callers with
+ * the same key wait for it and share its result (or failure) instead of issuing their own call.
+ * Nothing is cached once the call has completed.
+ *
+ * @param <V> the type of the call result
+ */
+public class SingleFlight<V> {
+
+    private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong sharedResults = new AtomicLong();
+
+    /**
+     * Executes the call, or joins the identical call already in flight.
+     *
+     * @param key  key identifying identical calls
+     * @param call the call
+     * @return the result of the call, shared by all callers that joined it
+     * @throws Exception the failure of the call, rethrown as is to all callers that joined it
+     */
+    public V execute(String key, Callable<V> call) throws Exception {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            sharedResults.incrementAndGet();
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                // joiners see the same failure as the caller that executed the call
+                Throwable cause = e.getCause();
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw (Exception) cause;
+            }
+        }
+
+        executions.incrementAndGet();
+        try {
+            V value = call.call();
+            flight.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            // joiners are released on any failure, otherwise they would wait forever
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Returns the number of calls actually executed.
+     *
+     * @return execution count
+     */
+    public long getExecutionCount() {
+        return executions.get();
+    }
+
+    /**
+     * Returns the number of callers that joined a call already in flight.
+     *
+     * @return shared result count
+     */
+    public long getSharedResultCount() {
+        return sharedResults.get();
+    }
+}
@@ -0,0 +1,202 @@
+package com.acn.utility;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StatementCache keeps a bounded, least-recently-used set of {@link PreparedStatement}s for a single
+ * JDBC {@link Connection}, so repeated parameterised lookups reuse the statement already parsed by the database.
+ * <p>
+ * A statement evicted from the cache is closed; if a result set returned by
+ * {@link #executeQuery(String, List, int)} is still open on it, the statement is closed once that result set is.
+ * {@link #executeQuery(String, List, int)} runs on the cached statement only while no result set of it is open,
+ * otherwise on a statement of its own, so callers never lose a result set they are still reading.
+ */
+public class StatementCache implements AutoCloseable {
+
+    private final Connection connection;
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<PreparedStatement, ResultSet> openResults = new IdentityHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong uncached = new AtomicLong();
+
+    /**
+     * Constructs a StatementCache for the given connection.
+     *
+     * @param connection the JDBC connection the statements are prepared on
+     * @param maxSize    maximum number of cached statements
+     */
+    public StatementCache(Connection connection, int maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Statement cache size must be positive.");
+        this.connection = connection;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a cached prepared statement for the SQL, preparing it on first use.
+     *
+     * @param sql the SQL statement, using {@code ?} for bind parameters
+     * @return the prepared statement, with cleared parameters
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps != null && !ps.isClosed()) {
+            hits.incrementAndGet();
+            ps.clearParameters();
+            return ps;
+        }
+
+        misses.incrementAndGet();
+        ps = connection.prepareStatement(sql);
+        statements.put(sql, ps);
+
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            PreparedStatement eldest = it.next().getValue();
+            it.remove();
+            evictions.incrementAndGet();
+            ResultSet open = openResults.remove(eldest);
+            if (isOpen(open)) {
+                eldest.closeOnCompletion();
+                if (isOpen(open))
+                    continue; // closed together with its result set
+            }
+            closeQuietly(eldest);
+        }
+        return ps;
+    }
+
+    /**
+     * Binds the parameters and executes the query on the cached statement for the SQL. If a result set of the
+     * cached statement is still open, the query runs on a new statement instead, which is closed together with
+     * its result set. Binding and execution are atomic with respect to other callers of this cache.
+     *
+     * @param sql        the SQL statement, using {@code ?} for bind parameters
+     * @param parameters bind values in placeholder order, or null
+     * @param fetchSize  rows per fetch, 0 for the driver default
+     * @return open result set, to be closed by the caller
+     * @throws SQLException if the statement cannot be prepared or executed
+     */
+    public synchronized ResultSet executeQuery(String sql, List<?> parameters, int fetchSize) throws SQLException {
+        openResults.values().removeIf(rs -> !isOpen(rs));
+        PreparedStatement ps = prepare(sql);
+        if (!openResults.containsKey(ps)) {
+            ResultSet rs = execute(ps, parameters, fetchSize);
+            openResults.put(ps, rs);
+            return rs;
+        }
+
+        uncached.incrementAndGet();
+        PreparedStatement own = connection.prepareStatement(sql);
+        try {
+            ResultSet rs = execute(own, parameters, fetchSize);
+            own.closeOnCompletion();
+            return rs;
+        } catch (SQLException e) {
+            closeQuietly(own);
+            throw e;
+        }
+    }
+
+    private static ResultSet execute(PreparedStatement ps, List<?> parameters, int fetchSize) throws SQLException {
+        if (fetchSize > 0)
+            ps.setFetchSize(fetchSize);
+        if (parameters != null) {
+            for (int i = 0; i < parameters.size(); i++)
+                ps.setObject(i + 1, parameters.get(i));
+        }
+        return ps.executeQuery();
+    }
+
+    /**
+     * Returns the number of statements served from the cache.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of statements that had to be prepared.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of statements closed to respect the size bound.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of queries run on a statement of their own, because the result set of the cached
+     * statement was still open.
+     *
+     * @return uncached execution count
+     */
+    public long getUncachedCount() {
+        return uncached.get();
+    }
+
+    /**
+     * Returns the current number of cached statements.
+     *
+     * @return cached statement count
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes all cached statements. The connection itself is left open.
+     */
+    @Override
+    public synchronized void close() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+        openResults.clear();
+    }
+
+    private static boolean isOpen(ResultSet rs) {
+        try {
+            return rs != null && !rs.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            // statement is discarded anyway
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StatementCache[size=" + size() + ", hits=" + hits.get() + ", misses=" + misses.get()
+                + ", evictions=" + evictions.get() + "]";
+    }
+}
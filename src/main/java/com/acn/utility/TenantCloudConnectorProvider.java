@@ -0,0 +1,291 @@
+package com.acn.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * TenantCloudConnectorProvider reads the Cloud Connector configuration from the SAP Integration Suite tenant
+ * and shares it across lookups.
+ * <p>
+ * One {@link CloudConnector} is kept per location ID and connection type, so the tenant API is queried once
+ * instead of once per lookup instance. The proxy headers carry a short-lived JWT in {@code Proxy-Authorization};
+ * they are refreshed in the background shortly before the token expires, and synchronously when
+ * {@link #get(String, String)} or {@link CloudConnector#getProxyHeaders()} finds them about to expire, so
+ * long-lived lookups keep working if a background refresh fails. Headers without a readable expiry are
+ * refreshed at a fixed interval.
+ * <p>
+ * The background refresh runs on a daemon thread per provider. It is stopped by {@link #shutdown()}, which is
+ * called for all providers when the bundle containing this class is stopped, see {@link BundleShutdown}.
+ */
+public class TenantCloudConnectorProvider implements CloudConnectorProvider {
+
+    private static final Logger LOGGER = Logger.getLogger(TenantCloudConnectorProvider.class.getName());
+
+    private static final Pattern EXP_CLAIM = Pattern.compile("\"exp\"\\s*:\\s*(\\d+)");
+    private static final long RETRY_DELAY_MILLIS = 10_000;
+
+    private static final Set<TenantCloudConnectorProvider> PROVIDERS = Collections
+            .synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    static {
+        BundleShutdown.onStop(() -> {
+            synchronized (PROVIDERS) {
+                PROVIDERS.forEach(TenantCloudConnectorProvider::shutdown);
+            }
+        });
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    private volatile long refreshMarginMillis = 60_000;
+    private volatile long refreshIntervalMillis = 300_000;
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    /**
+     * Constructs a TenantCloudConnectorProvider.
+     */
+    public TenantCloudConnectorProvider() {
+        PROVIDERS.add(this);
+    }
+
+    /**
+     * Sets how long before the token expiry the headers are refreshed (default 60 seconds). For short-lived
+     * tokens at most half of the token lifetime is used.
+     *
+     * @param millis refresh margin in milliseconds
+     */
+    public void setRefreshMarginMillis(long millis) {
+        refreshMarginMillis = Math.max(0, millis);
+    }
+
+    /**
+     * Sets the refresh interval for headers without a readable token expiry (default 5 minutes).
+     *
+     * @param millis refresh interval in milliseconds
+     */
+    public void setRefreshIntervalMillis(long millis) {
+        if (millis <= 0)
+            throw new IllegalArgumentException("Refresh interval must be positive.");
+        refreshIntervalMillis = millis;
+    }
+
+    @Override
+    public CloudConnector get(String locationId, String type) throws Exception {
+        String key = ResultCache.key(type.toUpperCase(), locationId != null ? locationId : "");
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            synchronized (entries) {
+                entry = entries.get(key);
+                if (entry == null) {
+                    CloudConnector connector = new CloudConnector(locationId, type);
+                    Entry created = new Entry(locationId, type, connector, expiry(connector.getProxyHeaders()));
+                    connector.setRefreshCheck(() -> refreshOnRead(key, created));
+                    entry = created;
+                    entries.put(key, entry);
+                    schedule(key, entry);
+                }
+            }
+        } else {
+            refreshOnRead(key, entry);
+        }
+        return entry.connector;
+    }
+
+    /**
+     * Drops the cached configuration, so it is read again from the tenant on next use.
+     *
+     * @param locationId optional location ID for SAP Cloud Connector
+     * @param type       the connection type ("HTTP" or "TCP")
+     */
+    public void invalidate(String locationId, String type) {
+        entries.remove(ResultCache.key(type.toUpperCase(), locationId != null ? locationId : ""));
+    }
+
+    /**
+     * Drops all cached configurations.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Drops all cached configurations and stops the background refresh thread. Configurations requested
+     * afterwards are read from the tenant again and refreshed by a new thread.
+     */
+    public void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            entries.clear();
+            executor = scheduler;
+            scheduler = null;
+        }
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Returns the number of successful header refreshes.
+     *
+     * @return refresh count
+     */
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    /**
+     * Returns the number of failed header refreshes.
+     *
+     * @return refresh failure count
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailures.get();
+    }
+
+    /**
+     * Refreshes headers due for refresh when they are read. A failed refresh is tolerated as long as the
+     * current token has not expired.
+     */
+    private void refreshOnRead(String key, Entry entry) {
+        if (entry.refreshAt() > System.currentTimeMillis())
+            return;
+        try {
+            refresh(key, entry);
+        } catch (Exception e) {
+            if (entry.expiresAt <= System.currentTimeMillis())
+                throw new IllegalStateException("Cloud Connector proxy token of " + entry.type
+                        + (entry.locationId != null ? " location " + entry.locationId : "")
+                        + " expired and could not be refreshed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads fresh headers from the tenant. Concurrent callers wait for a single refresh. After a failure, further
+     * attempts are delayed while the current token is still valid.
+     */
+    private void refresh(String key, Entry entry) throws Exception {
+        synchronized (entry) {
+            long now = System.currentTimeMillis();
+            if (entry.refreshAt() > now || (entry.retryAt > now && entry.expiresAt > now))
+                return;
+            try {
+                Map<String, String> headers = CloudConnector.proxyHeaders(CloudConnector.properties(entry.type),
+                        entry.locationId);
+                entry.connector.setProxyHeaders(headers);
+                entry.update(expiry(headers));
+                refreshes.incrementAndGet();
+            } catch (Exception e) {
+                entry.retryAt = now + RETRY_DELAY_MILLIS;
+                refreshFailures.incrementAndGet();
+                throw e;
+            }
+        }
+        schedule(key, entry);
+    }
+
+    private void schedule(String key, Entry entry) {
+        // entries replaced, invalidated or shut down in the meantime are no longer refreshed
+        if (entries.get(key) != entry)
+            return;
+        long delay = Math.max(1000, entry.refreshAt() - System.currentTimeMillis());
+        scheduler().schedule(() -> backgroundRefresh(key, entry), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void backgroundRefresh(String key, Entry entry) {
+        if (entries.get(key) != entry)
+            return;
+        try {
+            refresh(key, entry);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to refresh Cloud Connector headers for " + entry.type
+                    + (entry.locationId != null ? " location " + entry.locationId : ""), e);
+            if (entries.get(key) == entry)
+                scheduler().schedule(() -> backgroundRefresh(key, entry), RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private ScheduledExecutorService scheduler() {
+        ScheduledExecutorService s = scheduler;
+        if (s == null) {
+            synchronized (this) {
+                s = scheduler;
+                if (s == null) {
+                    s = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "cloud-connector-refresh");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    scheduler = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Returns the expiry of the JWT in the {@code Proxy-Authorization} header, or the fixed refresh interval
+     * from now if there is none.
+     */
+    private long expiry(Map<String, String> headers) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (!header.getKey().equalsIgnoreCase("Proxy-Authorization") || header.getValue() == null)
+                continue;
+            String[] token = header.getValue().replaceFirst("(?i)^Bearer\\s+", "").split("\\.");
+            if (token.length < 2)
+                break;
+            try {
+                String payload = new String(Base64.getUrlDecoder().decode(token[1]), StandardCharsets.UTF_8);
+                Matcher exp = EXP_CLAIM.matcher(payload);
+                if (exp.find())
+                    return Long.parseLong(exp.group(1)) * 1000;
+            } catch (IllegalArgumentException e) {
+                // not a JWT, fall back to the fixed interval
+            }
+            break;
+        }
+        return now + refreshIntervalMillis + refreshMarginMillis;
+    }
+
+    private final class Entry {
+        final String locationId;
+        final String type;
+        final CloudConnector connector;
+        volatile long fetchedAt;
+        volatile long expiresAt;
+        volatile long retryAt;
+
+        Entry(String locationId, String type, CloudConnector connector, long expiresAt) {
+            this.locationId = locationId;
+            this.type = type;
+            this.connector = connector;
+            update(expiresAt);
+        }
+
+        void update(long expiresAt) {
+            this.fetchedAt = System.currentTimeMillis();
+            this.expiresAt = expiresAt;
+            this.retryAt = 0;
+        }
+
+        long refreshAt() {
+            long lifetime = Math.max(0, expiresAt - fetchedAt);
+            return expiresAt - Math.min(refreshMarginMillis, lifetime / 2);
+        }
+    }
+}
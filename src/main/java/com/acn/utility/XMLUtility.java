@@ -3,15 +3,22 @@ package com.acn.utility;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
@@ -24,11 +31,43 @@ import org.xml.sax.InputSource;
 /**
  * XMLUtility is a helper class for parsing, manipulating, and querying XML documents.
  * It supports XPath evaluation, node creation, and namespace-aware processing.
+ * <p>
+ * JAXP factories are created once; parsers, XPath objects, compiled XPath expressions and
+ * transformers are kept in small shared pools, so constructing many short-lived instances is cheap.
  */
 public class XMLUtility {
 
+    private static final int MAX_COMPILED_XPATHS = 256;
+    private static final int POOL_SIZE = 16;
+
+    private static final DocumentBuilderFactory BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+    private static final DocumentBuilderFactory NS_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+    private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
+    private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+
+    static {
+        NS_BUILDER_FACTORY.setNamespaceAware(true);
+    }
+
+    // JAXP builders, XPath objects, compiled expressions and transformers are not thread-safe,
+    // so idle instances are kept in bounded pools and borrowed for a single call.
+    private static final Pool<DocumentBuilder> BUILDERS = new Pool<>();
+    private static final Pool<DocumentBuilder> NS_BUILDERS = new Pool<>();
+    private static final Pool<XPath> XPATHS = new Pool<>();
+    private static final Pool<Transformer> TRANSFORMERS = new Pool<>();
+    private static final Map<String, Pool<XPathExpression>> COMPILED_XPATHS =
+            new LinkedHashMap<String, Pool<XPathExpression>>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Pool<XPathExpression>> eldest) {
+                    return size() > MAX_COMPILED_XPATHS;
+                }
+            };
+
     private Document xmlData;
-    private XPath xpath;
+    private final Map<String, String> namespaces;
+    private final String namespaceKey;
 
     /**
      * Constructs an XMLUtility from a string containing XML.
@@ -37,9 +76,7 @@ public class XMLUtility {
      * @throws Exception if parsing fails
      */
     public XMLUtility(String xml) throws Exception {
-        xpath = XPathFactory.newInstance().newXPath();
-        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        this.xmlData = builder.parse(new InputSource(new StringReader(xml)));
+        this(parse(BUILDERS, BUILDER_FACTORY, new InputSource(new StringReader(xml))), null);
     }
 
     /**
@@ -49,9 +86,7 @@ public class XMLUtility {
      * @throws Exception if parsing fails
      */
     public XMLUtility(InputStream xml) throws Exception {
-        xpath = XPathFactory.newInstance().newXPath();
-        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        this.xmlData = builder.parse(xml);
+        this(parse(BUILDERS, BUILDER_FACTORY, new InputSource(xml)), null);
     }
 
     /**
@@ -62,11 +97,7 @@ public class XMLUtility {
      * @throws Exception if parsing fails
      */
     public XMLUtility(InputStream xml, Map<String, String> namespaces) throws Exception {
-        xpath = XPathFactory.newInstance().newXPath();
-        xpath.setNamespaceContext(new NamespaceContextImp(namespaces));
-        DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-        docBuilderFactory.setNamespaceAware(true);
-        this.xmlData = docBuilderFactory.newDocumentBuilder().parse(xml);
+        this(parse(NS_BUILDERS, NS_BUILDER_FACTORY, new InputSource(xml)), namespaces);
     }
 
     /**
@@ -77,11 +108,7 @@ public class XMLUtility {
      * @throws Exception if parsing fails
      */
     public XMLUtility(String xml, Map<String, String> namespaces) throws Exception {
-        xpath = XPathFactory.newInstance().newXPath();
-        xpath.setNamespaceContext(new NamespaceContextImp(namespaces));
-        DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-        docBuilderFactory.setNamespaceAware(true);
-        this.xmlData = docBuilderFactory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+        this(parse(NS_BUILDERS, NS_BUILDER_FACTORY, new InputSource(new StringReader(xml))), namespaces);
     }
 
     /**
@@ -91,8 +118,7 @@ public class XMLUtility {
      * @throws Exception if initialization fails
      */
     public XMLUtility(Document xml) throws Exception {
-        xpath = XPathFactory.newInstance().newXPath();
-        this.xmlData = xml;
+        this(xml, null);
     }
 
     /**
@@ -103,9 +129,75 @@ public class XMLUtility {
      * @throws Exception if initialization fails
      */
     public XMLUtility(Document xml, Map<String, String> namespaces) throws Exception {
-        xpath = XPathFactory.newInstance().newXPath();
-        xpath.setNamespaceContext(new NamespaceContextImp(namespaces));
         this.xmlData = xml;
+        this.namespaces = namespaces != null ? new TreeMap<>(namespaces) : null;
+        this.namespaceKey = namespaces != null ? this.namespaces.toString() : "";
+    }
+
+    private static DocumentBuilder newBuilder(DocumentBuilderFactory factory) {
+        try {
+            synchronized (factory) {
+                return factory.newDocumentBuilder();
+            }
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Unable to create XML parser: " + e.getMessage(), e);
+        }
+    }
+
+    private static Document parse(Pool<DocumentBuilder> pool, DocumentBuilderFactory factory, InputSource source)
+            throws Exception {
+        DocumentBuilder builder = pool.poll();
+        if (builder == null)
+            builder = newBuilder(factory);
+        try {
+            return builder.parse(source);
+        } finally {
+            builder.reset();
+            pool.release(builder);
+        }
+    }
+
+    /**
+     * Evaluates an XPath expression with a compiled form borrowed from the shared cache, compiling it when no
+     * idle instance is available. Compiled expressions are keyed by expression and namespace map.
+     *
+     * @param path       the XPath expression
+     * @param item       the context item
+     * @param returnType the expected result type
+     * @return the result of the evaluation
+     * @throws XPathExpressionException if compilation or evaluation fails
+     */
+    private Object evaluate(String path, Object item, QName returnType) throws XPathExpressionException {
+        String key = namespaceKey + '\u0001' + path;
+        Pool<XPathExpression> compiled;
+        synchronized (COMPILED_XPATHS) {
+            compiled = COMPILED_XPATHS.computeIfAbsent(key, k -> new Pool<>());
+        }
+        XPathExpression expression = compiled.poll();
+        if (expression == null)
+            expression = compile(path);
+        try {
+            return expression.evaluate(item, returnType);
+        } finally {
+            compiled.release(expression);
+        }
+    }
+
+    private XPathExpression compile(String path) throws XPathExpressionException {
+        XPath xpath = XPATHS.poll();
+        if (xpath == null) {
+            synchronized (XPATH_FACTORY) {
+                xpath = XPATH_FACTORY.newXPath();
+            }
+        }
+        try {
+            if (namespaces != null)
+                xpath.setNamespaceContext(new NamespaceContextImp(namespaces));
+            return xpath.compile(path);
+        } finally {
+            xpath.reset();
+            XPATHS.release(xpath);
+        }
     }
 
     /**
@@ -117,7 +209,7 @@ public class XMLUtility {
      * @throws Exception if evaluation fails
      */
     public Object executeXpath(String xpathEquation, String type) throws Exception {
-        return xpath.evaluate(xpathEquation, xmlData.getDocumentElement(),
+        return evaluate(xpathEquation, xmlData.getDocumentElement(),
                 new QName("http://www.w3.org/1999/XSL/Transform", type));
     }
 
@@ -130,7 +222,7 @@ public class XMLUtility {
      * @throws XPathExpressionException if evaluation fails
      */
     public Node retrieveNodeOfParentNode(String path, Node parentNode) throws XPathExpressionException {
-        return (Node) xpath.evaluate(path, parentNode, XPathConstants.NODE);
+        return (Node) evaluate(path, parentNode, XPathConstants.NODE);
     }
 
     /**
@@ -142,7 +234,7 @@ public class XMLUtility {
      * @throws XPathExpressionException if evaluation fails
      */
     public NodeList retrieveNodeListOfParentNode(String path, Node parentNode) throws XPathExpressionException {
-        return (NodeList) xpath.evaluate(path, parentNode, XPathConstants.NODESET);
+        return (NodeList) evaluate(path, parentNode, XPathConstants.NODESET);
     }
 
     /**
@@ -197,10 +289,18 @@ public class XMLUtility {
      */
     public String getDocumentString() throws Exception {
         StringWriter stringWriter = new StringWriter();
-        javax.xml.transform.TransformerFactory.newInstance().newTransformer().transform(
-                new DOMSource(xmlData),
-                new StreamResult(stringWriter)
-        );
+        Transformer transformer = TRANSFORMERS.poll();
+        if (transformer == null) {
+            synchronized (TRANSFORMER_FACTORY) {
+                transformer = TRANSFORMER_FACTORY.newTransformer();
+            }
+        }
+        try {
+            transformer.transform(new DOMSource(xmlData), new StreamResult(stringWriter));
+        } finally {
+            transformer.reset();
+            TRANSFORMERS.release(transformer);
+        }
         return stringWriter.toString();
     }
 
@@ -222,4 +322,20 @@ public class XMLUtility {
     public Document getDocument() {
         return xmlData;
     }
+
+    /**
+     * Bounded pool of idle instances. Callers create a new instance when the pool is empty; instances returned
+     * to a full pool are dropped.
+     */
+    private static final class Pool<T> {
+        private final ArrayBlockingQueue<T> idle = new ArrayBlockingQueue<>(POOL_SIZE);
+
+        T poll() {
+            return idle.poll();
+        }
+
+        void release(T instance) {
+            idle.offer(instance);
+        }
+    }
 }
@@ -0,0 +1,131 @@
+package com.acn.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.acn.utility.JSONStreamReader.Token;
+
+class JSONStreamReaderTest {
+
+    private static JSONStreamReader reader(String json) {
+        return new JSONStreamReader(new StringReader(json));
+    }
+
+    // all tokens of the document, scalars followed by their text
+    private static List<String> tokens(String json) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        JSONStreamReader reader = reader(json);
+        Token token;
+        while ((token = reader.next()) != Token.END_DOCUMENT) {
+            tokens.add(token.name());
+            if (token == Token.NAME || token == Token.STRING || token == Token.NUMBER || token == Token.BOOLEAN)
+                tokens.add(reader.getText());
+        }
+        return tokens;
+    }
+
+    @Test
+    void readsTokensInDocumentOrder() throws IOException {
+        assertEquals(List.of("BEGIN_OBJECT", "NAME", "a", "NUMBER", "1", "NAME", "b", "BEGIN_ARRAY", "BOOLEAN",
+                        "true", "NULL", "STRING", "x", "END_ARRAY", "NAME", "c", "BEGIN_OBJECT", "END_OBJECT",
+                        "END_OBJECT"),
+                tokens(" {\"a\": 1, \"b\": [true, null, \"x\"],\n\"c\": {}} "));
+    }
+
+    @Test
+    void readsTopLevelScalar() throws IOException {
+        assertEquals(List.of("STRING", "x"), tokens("\"x\""));
+        assertEquals(List.of("NUMBER", "-1.5e+3"), tokens("-1.5e+3"));
+    }
+
+    @Test
+    void decodesEscapes() throws IOException {
+        assertEquals(List.of("STRING", "\"\\/\b\f\n\r\t\u00e9\ud83d\ude00"),
+                tokens("\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00E9\\ud83d\\ude00\""));
+    }
+
+    @Test
+    void readsUtf8Stream() throws IOException {
+        JSONStreamReader reader = new JSONStreamReader(
+                new ByteArrayInputStream("[\"gr\u00fc\u00df\"]".getBytes(StandardCharsets.UTF_8)));
+        reader.next();
+        reader.next();
+        assertEquals("gr\u00fc\u00df", reader.getText());
+    }
+
+    @Test
+    void readsTokensAcrossBufferBoundaries() throws IOException {
+        String value = "x".repeat(20000);
+        assertEquals(List.of("BEGIN_ARRAY", "STRING", value, "NUMBER", "12345", "END_ARRAY"),
+                tokens("[\"" + value + "\"," + " ".repeat(8190) + "12345]"));
+    }
+
+    @Test
+    void skipsNestedValues() throws IOException {
+        JSONStreamReader reader = reader("{\"a\": {\"b\": [1, {\"c\": 2}]}, \"d\": 3}");
+        reader.next();
+        reader.next();
+        reader.skipValue();
+        assertEquals(Token.NAME, reader.next());
+        assertEquals("d", reader.getText());
+        assertEquals("3", reader.nextScalarOrSkip());
+        assertEquals(Token.END_OBJECT, reader.next());
+    }
+
+    @Test
+    void nextScalarOrSkipReturnsNullForNullAndStructures() throws IOException {
+        JSONStreamReader reader = reader("[null, [1, 2], {\"a\": 1}, \"x\"]");
+        reader.next();
+        assertNull(reader.nextScalarOrSkip());
+        assertNull(reader.nextScalarOrSkip());
+        assertNull(reader.nextScalarOrSkip());
+        assertEquals("x", reader.nextScalarOrSkip());
+    }
+
+    @Test
+    void peekDoesNotConsume() throws IOException {
+        JSONStreamReader reader = reader("[1]");
+        assertEquals(Token.BEGIN_ARRAY, reader.peek());
+        assertEquals(Token.BEGIN_ARRAY, reader.next());
+        assertEquals(Token.NUMBER, reader.peek());
+        assertEquals(Token.NUMBER, reader.next());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "0", "-0", "1", "-12", "1.5", "0.25", "1e5", "1E-5", "-1.5e+10" })
+    void acceptsValidNumbers(String number) throws IOException {
+        assertEquals(List.of("NUMBER", number), tokens(number));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "-", "1abc", "01", "1.", ".5", "1e", "1e+", "+1", "--1", "0x10", "NaN", "Infinity",
+            "1{\"a\":1}", "tru", "nul" })
+    void rejectsInvalidLiterals(String literal) {
+        assertThrows(IOException.class, () -> tokens("[" + literal + "]"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "\"\\x\"", "\"\\u12\"", "\"\\u12G4\"", "\"a\u0001b\"", "\"a\nb\"", "\"abc" })
+    void rejectsInvalidStrings(String string) {
+        assertThrows(IOException.class, () -> tokens(string));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "{\"a\" 1}", "{\"a\":}", "{1:2}", "[1 2]", "[1,]", "{\"a\":1,}", "[,1]", "[1}", "{]",
+            "[1", "{\"a\":1", "[1] 2", "}" })
+    void rejectsMalformedStructure(String json) {
+        assertThrows(IOException.class, () -> tokens(json));
+    }
+}
@@ -0,0 +1,145 @@
+package com.acn.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class LRUResultCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ResultCache.Loader<String> loader(String value) {
+        return () -> {
+            loads.incrementAndGet();
+            return value;
+        };
+    }
+
+    @Test
+    void returnsCachedValueOnHit() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(10, 1024 * 1024, 60_000);
+
+        assertEquals("a", cache.getOrLoad("k", loader("a")));
+        assertEquals("a", cache.getOrLoad("k", loader("b")));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(2, 1024 * 1024, 60_000);
+        cache.getOrLoad("a", loader("1"));
+        cache.getOrLoad("b", loader("2"));
+        cache.getOrLoad("a", loader("1"));
+        cache.getOrLoad("c", loader("3"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("1", cache.getOrLoad("a", loader("x")));
+        assertEquals("y", cache.getOrLoad("b", loader("y")));
+    }
+
+    @Test
+    void evictsWhenByteBoundIsExceeded() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(100, 200, 60_000);
+        cache.getOrLoad("a", loader("0123456789"));
+        cache.getOrLoad("b", loader("0123456789"));
+        cache.getOrLoad("c", loader("0123456789"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void doesNotCacheValuesLargerThanTheByteBound() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(100, 100, 60_000);
+        cache.getOrLoad("a", loader("x".repeat(100)));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(10, 1024 * 1024, 50);
+        cache.getOrLoad("k", loader("a"));
+        Thread.sleep(100);
+
+        assertEquals("b", cache.getOrLoad("k", loader("b")));
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    void cachesEmptyResultsOnlyWithNegativeTtl() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(10, 1024 * 1024, 60_000);
+        cache.getOrLoad("k", loader(""), String::isEmpty);
+        cache.getOrLoad("k", loader(""), String::isEmpty);
+        assertEquals(2, loads.get());
+
+        cache.setNegativeTtlMillis(60_000);
+        cache.getOrLoad("k", loader(""), String::isEmpty);
+        assertEquals("", cache.getOrLoad("k", loader("a"), String::isEmpty));
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getNegativeHitCount());
+    }
+
+    @Test
+    void rethrowsCachedNotFoundFailureUnchanged() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(10, 1024 * 1024, 60_000);
+        cache.setNegativeTtlMillis(60_000);
+        HTTPStatusException notFound = new HTTPStatusException(404, "not found");
+
+        HTTPStatusException miss = assertThrows(HTTPStatusException.class,
+                () -> cache.getOrLoad("k", () -> { throw notFound; }));
+        HTTPStatusException hit = assertThrows(HTTPStatusException.class, () -> cache.getOrLoad("k", loader("a")));
+
+        assertSame(notFound, miss);
+        assertSame(notFound, hit);
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void doesNotCacheOtherFailures() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(10, 1024 * 1024, 60_000);
+        cache.setNegativeTtlMillis(60_000);
+
+        assertThrows(HTTPStatusException.class,
+                () -> cache.getOrLoad("k", () -> { throw new HTTPStatusException(500, "error"); }));
+        assertEquals("a", cache.getOrLoad("k", loader("a")));
+    }
+
+    @Test
+    void invalidateAndClearRemoveEntries() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(10, 1024 * 1024, 60_000);
+        cache.getOrLoad("a", loader("1"));
+        cache.getOrLoad("b", loader("2"));
+
+        cache.invalidate("a");
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEstimatedBytes());
+    }
+
+    @Test
+    void rejectsNonPositiveBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new LRUResultCache<String>(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LRUResultCache<String>(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LRUResultCache<String>(1, 1, 0));
+    }
+
+    @Test
+    void nullIsNeverCachedAsAValue() throws Exception {
+        LRUResultCache<String> cache = new LRUResultCache<>(10, 1024 * 1024, 60_000);
+
+        assertNull(cache.getOrLoad("k", loader(null)));
+        assertNull(cache.getOrLoad("k", loader(null)));
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,166 @@
+package com.acn.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class LookupExecutorTest {
+
+    // backends are global, so every test uses its own key
+    private static String backend(String name) {
+        return "TEST|" + name;
+    }
+
+    @Test
+    void boundsConcurrentTasksPerBackend() throws Exception {
+        String backend = backend("bounds");
+        LookupExecutor.setMaxConcurrency(backend, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int n = i;
+            futures.add(LookupExecutor.submit(backend, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return n;
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++)
+            assertEquals(i, futures.get(i).get(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void raisedLimitStartsWaitingTasks() throws Exception {
+        String backend = backend("raise");
+        LookupExecutor.setMaxConcurrency(backend, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = LookupExecutor.submit(backend, () -> {
+            release.await();
+            return null;
+        });
+        CompletableFuture<Void> second = LookupExecutor.submit(backend, () -> {
+            secondStarted.countDown();
+            return null;
+        });
+        assertFalse(secondStarted.await(100, TimeUnit.MILLISECONDS));
+
+        LookupExecutor.setMaxConcurrency(backend, 2);
+        assertTrue(secondStarted.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void nestedSubmitToSaturatedBackendRunsInline() throws Exception {
+        String backend = backend("nested");
+        LookupExecutor.setMaxConcurrency(backend, 1);
+
+        CompletableFuture<String> outer = LookupExecutor.submit(backend, () -> {
+            Thread outerThread = Thread.currentThread();
+            CompletableFuture<Boolean> inner = LookupExecutor.submit(backend,
+                    () -> Thread.currentThread() == outerThread);
+            assertTrue(inner.isDone());
+            return inner.join() ? "inline" : "dispatched";
+        });
+
+        assertEquals("inline", outer.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void isRunningInTellsTheBackendOfTheCurrentTask() throws Exception {
+        String backend = backend("running-in");
+        String other = backend("running-in-other");
+
+        assertFalse(LookupExecutor.isRunningIn(backend));
+        assertTrue(LookupExecutor.submit(backend, () -> LookupExecutor.isRunningIn(backend)).get(5, TimeUnit.SECONDS));
+        assertFalse(LookupExecutor.submit(backend, () -> LookupExecutor.isRunningIn(other)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelledWaitingTaskNeverRuns() throws Exception {
+        String backend = backend("cancel");
+        LookupExecutor.setMaxConcurrency(backend, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Void> first = LookupExecutor.submit(backend, () -> {
+            release.await();
+            return null;
+        });
+        CompletableFuture<Void> waiting = LookupExecutor.submit(backend, () -> {
+            ran.set(true);
+            return null;
+        });
+        waiting.cancel(true);
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        // a task submitted after the cancelled one runs, so the cancelled one has been passed over
+        LookupExecutor.submit(backend, () -> null).get(5, TimeUnit.SECONDS);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void taskFailureCompletesFutureExceptionally() {
+        CompletableFuture<Object> future = LookupExecutor.submit(backend("failure"), () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void rejectedTaskCompletesFutureExceptionally() throws Exception {
+        ExecutorService rejecting = Executors.newSingleThreadExecutor();
+        rejecting.shutdown();
+        LookupExecutor.setExecutor(rejecting);
+        try {
+            CompletableFuture<Object> future = LookupExecutor.submit(backend("rejected"), () -> "never");
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        } finally {
+            LookupExecutor.setExecutor(null);
+        }
+        assertEquals("ok", LookupExecutor.submit(backend("rejected"), () -> "ok").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void httpBackendUsesDefaultPorts() {
+        assertEquals("HTTP|https://host:443", LookupExecutor.httpBackend("https://host/path"));
+        assertEquals(LookupExecutor.httpBackend("https://host"), LookupExecutor.httpBackend("https://host:443/x"));
+        assertEquals("HTTP|http://host:80", LookupExecutor.httpBackend("http://host"));
+        assertEquals("HTTP|http://host:8080", LookupExecutor.httpBackend("http://host:8080/x?y=1"));
+    }
+
+    @Test
+    void rejectsNonPositiveLimits() {
+        assertThrows(IllegalArgumentException.class, () -> LookupExecutor.setMaxConcurrency(backend("invalid"), 0));
+        assertThrows(IllegalArgumentException.class, () -> LookupExecutor.setDefaultMaxConcurrency(-1));
+    }
+}
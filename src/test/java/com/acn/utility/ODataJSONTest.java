@@ -0,0 +1,58 @@
+package com.acn.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.json.JSONObject;
+import org.json.XML;
+import org.junit.jupiter.api.Test;
+
+class ODataJSONTest {
+
+    private static String writeXML(String json) throws IOException {
+        StringWriter out = new StringWriter();
+        ODataJSON.writeXML(new JSONStreamReader(new StringReader(json)), out);
+        return out.toString();
+    }
+
+    // single-member objects, so org.json's member order does not matter
+    private static void assertSameAsXMLToString(String json) throws IOException {
+        assertEquals(XML.toString(new JSONObject(json)), writeXML(json));
+    }
+
+    @Test
+    void writesMembersAsElements() throws IOException {
+        assertEquals("<d><results><a>1</a><b/><c>null</c></results></d>",
+                writeXML("{\"d\": {\"results\": {\"a\": 1, \"b\": \"\", \"c\": null}}}"));
+    }
+
+    @Test
+    void repeatsArrayEntriesAndWrapsNestedArrays() throws IOException {
+        assertSameAsXMLToString("{\"value\": [{\"a\": \"x\"}, {\"a\": \"y\"}]}");
+        assertSameAsXMLToString("{\"a\": [[1, 2], 3]}");
+    }
+
+    @Test
+    void writesContentAsText() throws IOException {
+        assertSameAsXMLToString("{\"a\": {\"content\": \"text\"}}");
+        assertSameAsXMLToString("{\"a\": {\"content\": [1, \"x\", null]}}");
+        assertSameAsXMLToString("{\"a\": {\"content\": {\"b\": 1}}}");
+        assertEquals("<a><b>1</b>text</a>", writeXML("{\"a\": {\"b\": 1, \"content\": \"text\"}}"));
+    }
+
+    @Test
+    void escapesMarkupAndIllegalCharacters() throws IOException {
+        assertSameAsXMLToString("{\"a\": \"<&>\\\"'\"}");
+        assertSameAsXMLToString("{\"a\": \"x\\u0001y\\u0000\\ufffe\"}");
+        assertSameAsXMLToString("{\"a\": \"tab\\tline\\nemoji\\ud83d\\ude00\"}");
+    }
+
+    @Test
+    void rejectsNonObjectResponse() {
+        assertThrows(IOException.class, () -> writeXML("[1]"));
+    }
+}
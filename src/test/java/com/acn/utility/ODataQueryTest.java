@@ -0,0 +1,111 @@
+package com.acn.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.acn.utility.ODataQuery.Version;
+
+class ODataQueryTest {
+
+    private static final UUID GUID = UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e");
+    private static final LocalDateTime DATE_TIME = LocalDateTime.of(2024, 1, 31, 10, 15, 0, 123_456_789);
+
+    @Test
+    void buildsSelectFilterAndTop() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("Product", "A 1");
+        keys.put("Plant", 1000);
+
+        assertEquals("https://host/sap/API/A_Product?$select=Product%2CDescription"
+                        + "&$filter=Product%20eq%20%27A%201%27%20and%20Plant%20eq%201000&$top=5",
+                ODataQuery.buildUrl("https://host/sap/API/", "A_Product", keys,
+                        List.of("Product", "Description"), 5));
+    }
+
+    @Test
+    void omitsEmptyOptions() {
+        assertEquals("https://host/API/A_Product", ODataQuery.buildUrl("https://host/API", "A_Product", null, null, 0));
+        assertEquals("https://host/API/A_Product",
+                ODataQuery.buildUrl("https://host/API", "A_Product", Map.of(), List.of(), 0));
+    }
+
+    @Test
+    void quotesStringsAndEscapesQuotes() {
+        assertEquals("'O''Brien'", ODataQuery.literal("O'Brien", Version.V2));
+        assertEquals("'O''Brien'", ODataQuery.literal("O'Brien", Version.V4));
+    }
+
+    @Test
+    void writesUntypedLiteralsTheSameForBothVersions() {
+        for (Version version : Version.values()) {
+            assertEquals("null", ODataQuery.literal(null, version));
+            assertEquals("12", ODataQuery.literal(12, version));
+            assertEquals("1.5", ODataQuery.literal(1.5d, version));
+            assertEquals("true", ODataQuery.literal(true, version));
+        }
+    }
+
+    @Test
+    void writesV2TypedLiterals() {
+        assertEquals("12.50M", ODataQuery.literal(new BigDecimal("12.50"), Version.V2));
+        assertEquals("12L", ODataQuery.literal(12L, Version.V2));
+        assertEquals("guid'0f8fad5b-d9cb-469f-a165-70867728950e'", ODataQuery.literal(GUID, Version.V2));
+        assertEquals("datetime'2024-01-31T10:15:00.123'", ODataQuery.literal(DATE_TIME, Version.V2));
+        assertEquals("datetime'2024-01-31T00:00:00'", ODataQuery.literal(LocalDate.of(2024, 1, 31), Version.V2));
+        assertEquals("datetime'2024-01-31T10:15:00.123'",
+                ODataQuery.literal(Date.from(DATE_TIME.toInstant(ZoneOffset.UTC)), Version.V2));
+        assertEquals("datetimeoffset'2024-01-31T10:15:00.123+01:00'",
+                ODataQuery.literal(DATE_TIME.atOffset(ZoneOffset.ofHours(1)), Version.V2));
+        assertEquals("datetimeoffset'2024-01-31T10:15:00.123Z'",
+                ODataQuery.literal(DATE_TIME.toInstant(ZoneOffset.UTC), Version.V2));
+    }
+
+    @Test
+    void writesV4TypedLiteralsWithoutPrefixesOrSuffixes() {
+        assertEquals("12.50", ODataQuery.literal(new BigDecimal("12.50"), Version.V4));
+        assertEquals("12", ODataQuery.literal(12L, Version.V4));
+        assertEquals("0f8fad5b-d9cb-469f-a165-70867728950e", ODataQuery.literal(GUID, Version.V4));
+        assertEquals("2024-01-31T10:15:00.123Z", ODataQuery.literal(DATE_TIME, Version.V4));
+        assertEquals("2024-01-31", ODataQuery.literal(LocalDate.of(2024, 1, 31), Version.V4));
+        assertEquals("2024-01-31", ODataQuery.literal(java.sql.Date.valueOf("2024-01-31"), Version.V4));
+        assertEquals("2024-01-31T10:15:00.123Z",
+                ODataQuery.literal(Date.from(DATE_TIME.toInstant(ZoneOffset.UTC)), Version.V4));
+        assertEquals("2024-01-31T10:15:00.123Z",
+                ODataQuery.literal(java.sql.Timestamp.from(DATE_TIME.toInstant(ZoneOffset.UTC)), Version.V4));
+        assertEquals("2024-01-31T10:15:00.123+01:00",
+                ODataQuery.literal(OffsetDateTime.of(DATE_TIME, ZoneOffset.ofHours(1)), Version.V4));
+        assertEquals("2024-01-31T10:15:00.123+01:00",
+                ODataQuery.literal(ZonedDateTime.of(DATE_TIME, ZoneId.of("Europe/Berlin")), Version.V4));
+        assertEquals("2024-01-31T10:15:00Z", ODataQuery.literal(Instant.parse("2024-01-31T10:15:00Z"), Version.V4));
+    }
+
+    @Test
+    void defaultsToV2() {
+        assertEquals("12L", ODataQuery.literal(12L));
+        assertEquals("Id eq 12L", ODataQuery.filter(Map.of("Id", 12L)));
+        assertEquals("Id eq 12", ODataQuery.filter(Map.of("Id", 12L), Version.V4));
+    }
+
+    @Test
+    void detectsVersionFromHeader() {
+        assertEquals(Version.V4, Version.of("4.0"));
+        assertEquals(Version.V4, Version.of(" 4.01"));
+        assertEquals(Version.V2, Version.of(null));
+        assertEquals(Version.V2, Version.of("2.0"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.acn.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+class RFCRequestKeyTest {
+
+    // like RFCLookup, only elements with several child nodes are tables, so requests are indented
+    private static String key(String xml) throws Exception {
+        xml = xml.replace("<table>", "\n  <table>");
+        Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new InputSource(new StringReader(xml))).getDocumentElement();
+        return RFCRequestKey.forRequest(root);
+    }
+
+    @Test
+    void keyStartsWithFunctionName() throws Exception {
+        assertTrue(key("<BAPI_X><A>1</A></BAPI_X>").startsWith("BAPI_X"));
+    }
+
+    @Test
+    void ignoresImportAndFieldOrder() throws Exception {
+        assertEquals(key("<F><A>1</A><B>2</B><T><table><X>1</X><Y>2</Y></table></T></F>"),
+                key("<F><T><table><Y>2</Y><X>1</X></table></T><B>2</B><A>1</A></F>"));
+    }
+
+    @Test
+    void keepsRowOrder() throws Exception {
+        assertNotEquals(key("<F><T><table><X>1</X></table><table><X>2</X></table></T></F>"),
+                key("<F><T><table><X>2</X></table><table><X>1</X></table></T></F>"));
+    }
+
+    @Test
+    void distinguishesValues() throws Exception {
+        assertNotEquals(key("<F><A>1</A></F>"), key("<F><A>2</A></F>"));
+        assertNotEquals(key("<F><A>1</A></F>"), key("<G><A>1</A></G>"));
+    }
+
+    @Test
+    void appendsRowsOfRepeatedTableElements() throws Exception {
+        String merged = key("<F><T><table><X>1</X></table><table><X>2</X></table></T></F>");
+
+        assertEquals(merged, key("<F><T><table><X>1</X></table></T><T><table><X>2</X></table></T></F>"));
+        assertNotEquals(merged, key("<F><T><table><X>2</X></table></T></F>"));
+    }
+
+    @Test
+    void keysImportsAndTablesApart() throws Exception {
+        assertNotEquals(key("<F><T>1</T></F>"), key("<F><T><table><X>1</X></table></T></F>"));
+    }
+
+    @Test
+    void separatorsInValuesDoNotCollide() {
+        assertNotEquals(RFCRequestKey.forParameters("F", Map.of("A", "1:2", "B", "3")),
+                RFCRequestKey.forParameters("F", Map.of("A", "1", "B", "2:3")));
+    }
+
+    @Test
+    void ignoresParameterMapOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("A", 1);
+        first.put("B", List.of(Map.of("X", "1", "Y", "2")));
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("B", List.of(Map.of("Y", "2", "X", "1")));
+        second.put("A", 1);
+
+        assertEquals(RFCRequestKey.forParameters("F", first), RFCRequestKey.forParameters("F", second));
+    }
+
+    @Test
+    void keysBinaryValuesByContent() {
+        assertEquals(RFCRequestKey.forParameters("F", Map.of("RAW", new byte[] { 1, 2, 3 })),
+                RFCRequestKey.forParameters("F", Map.of("RAW", new byte[] { 1, 2, 3 })));
+        assertNotEquals(RFCRequestKey.forParameters("F", Map.of("RAW", new byte[] { 1, 2, 3 })),
+                RFCRequestKey.forParameters("F", Map.of("RAW", new byte[] { 1, 2, 4 })));
+    }
+
+    @Test
+    void keysDatesByMilliseconds() {
+        assertEquals(RFCRequestKey.forParameters("F", Map.of("D", new Date(1_000))),
+                RFCRequestKey.forParameters("F", Map.of("D", new Date(1_000))));
+        assertNotEquals(RFCRequestKey.forParameters("F", Map.of("D", new Date(1_000))),
+                RFCRequestKey.forParameters("F", Map.of("D", new Date(1_001))));
+    }
+
+    @Test
+    void treatsMissingParametersAsEmpty() {
+        assertEquals(RFCRequestKey.forParameters("F", null), RFCRequestKey.forParameters("F", Map.of()));
+    }
+}
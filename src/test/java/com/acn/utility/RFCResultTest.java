@@ -0,0 +1,80 @@
+package com.acn.utility;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class RFCResultTest {
+
+    private static RFCResult result() {
+        Map<String, Object> exports = new LinkedHashMap<>();
+        exports.put("B", "text");
+        exports.put("A", new Date(1_000));
+        exports.put("RAW", new byte[] { 1, 2 });
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("X", "1");
+        row.put("D", new Date(2_000));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(row);
+        Map<String, List<Map<String, Object>>> tables = new LinkedHashMap<>();
+        tables.put("T", rows);
+        return new RFCResult(exports, tables);
+    }
+
+    @Test
+    void keepsFieldOrder() {
+        assertEquals(List.of("B", "A", "RAW"), new ArrayList<>(result().getExports().keySet()));
+    }
+
+    @Test
+    void copiesArguments() {
+        Map<String, Object> exports = new LinkedHashMap<>();
+        exports.put("A", "1");
+        RFCResult result = new RFCResult(exports, new LinkedHashMap<>());
+        exports.put("A", "2");
+
+        assertEquals("1", result.getExportString("A"));
+    }
+
+    @Test
+    void rejectsModification() {
+        RFCResult result = result();
+
+        assertThrows(UnsupportedOperationException.class, () -> result.getExports().put("C", "x"));
+        assertThrows(UnsupportedOperationException.class, () -> result.getTable("T").add(Map.of()));
+        assertThrows(UnsupportedOperationException.class, () -> result.getTable("T").get(0).put("X", "2"));
+    }
+
+    @Test
+    void returnsCopiesOfMutableValues() {
+        RFCResult result = result();
+
+        ((Date) result.getExport("A")).setTime(5_000);
+        ((byte[]) result.getExport("RAW"))[0] = 9;
+        ((Date) result.getTable("T").get(0).get("D")).setTime(5_000);
+        result.getExports().entrySet().forEach(e -> {
+            if (e.getValue() instanceof Date)
+                ((Date) e.getValue()).setTime(6_000);
+        });
+
+        assertEquals(1_000, ((Date) result.getExport("A")).getTime());
+        assertArrayEquals(new byte[] { 1, 2 }, (byte[]) result.getExport("RAW"));
+        assertEquals(2_000, ((Date) result.getTable("T").get(0).get("D")).getTime());
+    }
+
+    @Test
+    void returnsEmptyTableForUnknownName() {
+        assertTrue(result().getTable("UNKNOWN").isEmpty());
+        assertNull(result().getExport("UNKNOWN"));
+    }
+}
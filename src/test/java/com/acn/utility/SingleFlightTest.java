@@ -0,0 +1,113 @@
+package com.acn.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> flight.execute("k", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "result";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<String> joiner = executor.submit(() -> flight.execute("k", () -> {
+            calls.incrementAndGet();
+            return "other";
+        }));
+        awaitSharedResults(flight, 1);
+        release.countDown();
+
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("result", joiner.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.getExecutionCount());
+    }
+
+    @Test
+    void joinersGetTheOriginalFailure() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        HTTPStatusException failure = new HTTPStatusException(503, "unavailable");
+
+        Future<String> leader = executor.submit(() -> flight.execute("k", () -> {
+            started.countDown();
+            release.await();
+            throw failure;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<String> joiner = executor.submit(() -> flight.execute("k", () -> "other"));
+        awaitSharedResults(flight, 1);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException joinerError = assertThrows(ExecutionException.class, () -> joiner.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderError.getCause());
+        assertSame(failure, joinerError.getCause());
+    }
+
+    @Test
+    void nothingIsCachedAfterCompletion() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+
+        assertEquals("a", flight.execute("k", () -> "a"));
+        assertEquals("b", flight.execute("k", () -> "b"));
+        assertEquals(2, flight.getExecutionCount());
+        assertEquals(0, flight.getSharedResultCount());
+    }
+
+    @Test
+    void failedCallIsNotRemembered() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flight.execute("k", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("a", flight.execute("k", () -> "a"));
+    }
+
+    @Test
+    void differentKeysDoNotShare() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+
+        assertEquals("a", flight.execute("a", () -> "a"));
+        assertEquals("b", flight.execute("b", () -> "b"));
+        assertEquals(0, flight.getSharedResultCount());
+    }
+
+    private static void awaitSharedResults(SingleFlight<?> flight, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.getSharedResultCount() < expected && System.nanoTime() < deadline)
+            Thread.sleep(5);
+        assertEquals(expected, flight.getSharedResultCount());
+    }
+}
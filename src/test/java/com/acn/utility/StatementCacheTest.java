@@ -0,0 +1,225 @@
+package com.acn.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class StatementCacheTest {
+
+    /**
+     * Minimal in-memory JDBC statement: records bound parameters and closes on completion like a driver does.
+     */
+    private static final class FakeStatement {
+        final Map<Integer, Object> parameters = new TreeMap<>();
+        final List<FakeResultSet> results = new ArrayList<>();
+        int fetchSize;
+        boolean closeOnCompletion;
+        boolean closed;
+        PreparedStatement proxy;
+    }
+
+    private static final class FakeResultSet {
+        final FakeStatement statement;
+        final Map<Integer, Object> parameters;
+        boolean closed;
+
+        FakeResultSet(FakeStatement statement) {
+            this.statement = statement;
+            this.parameters = new TreeMap<>(statement.parameters);
+        }
+    }
+
+    private final List<FakeStatement> prepared = new ArrayList<>();
+    private final Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                if (method.getName().equals("prepareStatement"))
+                    return statement();
+                throw new UnsupportedOperationException(method.getName());
+            });
+
+    private PreparedStatement statement() {
+        FakeStatement fake = new FakeStatement();
+        prepared.add(fake);
+        fake.proxy = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isClosed":
+                            return fake.closed;
+                        case "close":
+                            fake.closed = true;
+                            fake.results.forEach(rs -> rs.closed = true);
+                            return null;
+                        case "clearParameters":
+                            fake.parameters.clear();
+                            return null;
+                        case "setObject":
+                            fake.parameters.put((Integer) args[0], args[1]);
+                            return null;
+                        case "setFetchSize":
+                            fake.fetchSize = (Integer) args[0];
+                            return null;
+                        case "closeOnCompletion":
+                            fake.closeOnCompletion = true;
+                            return null;
+                        case "executeQuery":
+                            if (fake.closed)
+                                throw new SQLException("Statement is closed");
+                            // a statement has one current result set
+                            fake.results.forEach(rs -> rs.closed = true);
+                            FakeResultSet rs = new FakeResultSet(fake);
+                            fake.results.add(rs);
+                            return resultSet(rs);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return fake.proxy;
+    }
+
+    private ResultSet resultSet(FakeResultSet fake) {
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isClosed":
+                            return fake.closed;
+                        case "close":
+                            fake.closed = true;
+                            if (fake.statement.closeOnCompletion)
+                                fake.statement.closed = true;
+                            return null;
+                        case "getStatement":
+                            return fake.statement.proxy;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private FakeStatement fakeOf(ResultSet rs) throws SQLException {
+        PreparedStatement statement = (PreparedStatement) rs.getStatement();
+        return prepared.stream().filter(s -> s.proxy == statement).findFirst().orElseThrow();
+    }
+
+    @Test
+    void reusesPreparedStatement() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 10);
+        PreparedStatement first = cache.prepare("SELECT 1");
+        first.setObject(1, "x");
+        PreparedStatement second = cache.prepare("SELECT 1");
+
+        assertSame(first, second);
+        assertEquals(1, prepared.size());
+        assertTrue(prepared.get(0).parameters.isEmpty());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void bindsParametersAndFetchSize() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 10);
+        ResultSet rs = cache.executeQuery("SELECT * FROM T WHERE A = ? AND B = ?", List.of("a", 2), 500);
+
+        FakeStatement statement = fakeOf(rs);
+        assertEquals(Map.of(1, "a", 2, 2), statement.parameters);
+        assertEquals(500, statement.fetchSize);
+    }
+
+    @Test
+    void reusesCachedStatementOnceResultSetIsClosed() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 10);
+        cache.executeQuery("SELECT ?", List.of(1), 0).close();
+        ResultSet rs = cache.executeQuery("SELECT ?", List.of(2), 0);
+
+        assertEquals(1, prepared.size());
+        assertEquals(0, cache.getUncachedCount());
+        assertEquals(Map.of(1, 2), prepared.get(0).results.get(1).parameters);
+        assertFalse(rs.isClosed());
+    }
+
+    @Test
+    void runsOnOwnStatementWhileCachedResultSetIsOpen() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 10);
+        ResultSet first = cache.executeQuery("SELECT ?", List.of(1), 0);
+        ResultSet second = cache.executeQuery("SELECT ?", List.of(2), 0);
+
+        assertFalse(first.isClosed());
+        assertFalse(second.isClosed());
+        assertNotSame(first.getStatement(), second.getStatement());
+        assertEquals(1, cache.getUncachedCount());
+
+        FakeStatement own = fakeOf(second);
+        second.close();
+        assertTrue(own.closed);
+        assertFalse(fakeOf(first).closed);
+    }
+
+    @Test
+    void evictsAndClosesLeastRecentlyUsedStatement() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 2);
+        cache.prepare("A");
+        cache.prepare("B");
+        cache.prepare("A");
+        cache.prepare("C");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(prepared.get(1).closed);
+        assertFalse(prepared.get(0).closed);
+    }
+
+    @Test
+    void evictionKeepsOpenResultSet() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 1);
+        ResultSet rs = cache.executeQuery("A", null, 0);
+        FakeStatement evicted = fakeOf(rs);
+        cache.prepare("B");
+
+        assertEquals(1, cache.getEvictionCount());
+        assertFalse(rs.isClosed());
+        assertFalse(evicted.closed);
+
+        rs.close();
+        assertTrue(evicted.closed);
+    }
+
+    @Test
+    void preparesAgainWhenCachedStatementWasClosed() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 10);
+        cache.prepare("A").close();
+        PreparedStatement ps = cache.prepare("A");
+
+        assertEquals(2, prepared.size());
+        assertFalse(ps.isClosed());
+    }
+
+    @Test
+    void closeClosesAllStatements() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 10);
+        cache.prepare("A");
+        cache.prepare("B");
+        cache.close();
+
+        assertEquals(0, cache.size());
+        assertTrue(prepared.stream().allMatch(s -> s.closed));
+    }
+
+    @Test
+    void rejectsNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new StatementCache(connection, 0));
+    }
+}